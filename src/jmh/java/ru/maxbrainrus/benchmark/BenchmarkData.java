@@ -0,0 +1,24 @@
+package ru.maxbrainrus.benchmark;
+
+import lombok.SneakyThrows;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.generator.StatementGenerator;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+class BenchmarkData {
+    private static final StatementGenerator GENERATOR = new StatementGenerator(42);
+
+    @SneakyThrows
+    static byte[] statement(BankFormatType bankFormatType, int rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GENERATOR.writeStatement(bankFormatType, rows, out);
+        return out.toByteArray();
+    }
+
+    static Map<String, ConfigValue> keyWordsToCategoryMap(int size) {
+        return GENERATOR.generateKeyWordsToCategoryMap(size);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.maxbrainrus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxbrainrus.config.KeyWordMatcher;
+import ru.maxbrainrus.parser.ConfigFiller;
+import ru.maxbrainrus.parser.StringPool;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.RaiffeisenStatementParser;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link #fill()} fills statement by a new filler, so keywords are searched once per distinct description
+ * as in a single run of the app. {@link #fillWarmCache()} reuses one filler, so every description is found
+ * in its lookup cache as in watch-folder and server modes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigFillerBenchmark {
+    @Param({"10", "1000", "20000"})
+    private int keyWords;
+
+    @Param({"10000"})
+    private int rows;
+
+    private List<MoneyTransaction> transactions;
+    private KeyWordMatcher keyWordMatcher;
+    private ConfigFiller configFiller;
+    private ConfigFiller warmConfigFiller;
+
+    @Setup
+    public void setUp() {
+        byte[] statement = BenchmarkData.statement(BankFormatType.RAIF, rows);
+        transactions = new RaiffeisenStatementParser().parseBankStatement(new ByteArrayInputStream(statement), "wallet");
+        keyWordMatcher = KeyWordMatcher.compile(BenchmarkData.keyWordsToCategoryMap(keyWords));
+        warmConfigFiller = new ConfigFiller(keyWordMatcher, new StringPool());
+    }
+
+    @Setup(Level.Invocation)
+    public void createConfigFiller() {
+        configFiller = new ConfigFiller(keyWordMatcher, new StringPool());
+    }
+
+    @Benchmark
+    public List<MoneyTransaction> fill() {
+        return configFiller.fill(transactions);
+    }
+
+    @Benchmark
+    public List<MoneyTransaction> fillWarmCache() {
+        return warmConfigFiller.fill(transactions);
+    }
+}
@@ -0,0 +1,66 @@
+package ru.maxbrainrus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxbrainrus.parser.ConfigFiller;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.RaiffeisenStatementParser;
+import ru.maxbrainrus.report.CsvReportMaker;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TransactionBatch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportMakerBenchmark {
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private List<MoneyTransaction> transactions;
+    private TransactionBatch batch;
+    private Path report;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] statement = BenchmarkData.statement(BankFormatType.RAIF, rows);
+        List<MoneyTransaction> parsed = new RaiffeisenStatementParser().parseBankStatement(new ByteArrayInputStream(statement), "wallet");
+        transactions = new ConfigFiller(BenchmarkData.keyWordsToCategoryMap(100)).fill(parsed);
+        batch = TransactionBatch.of(transactions.stream());
+        report = Files.createTempFile("report", ".csv");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(report);
+    }
+
+    @Benchmark
+    public void createReport() {
+        CsvReportMaker.createReport(transactions, report.toString());
+    }
+
+    @Benchmark
+    public void createReportFromBatch() {
+        CsvReportMaker.createReport(batch, report.toString());
+    }
+}
@@ -0,0 +1,139 @@
+package ru.maxbrainrus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxbrainrus.generator.StatementGenerator;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first report row of a short command line run: from start of the shaded jar in a new JVM
+ * until the first transaction row appears in report file, with and without class data sharing archive.
+ * Report file is polled, JVM exit is waited for and checked outside of the measured time.
+ * Report of a small statement is written by one buffer flush, so the first row appears with the whole report.
+ * Both are built by {@code mvn -P appcds package} (with the same JDK as the benchmark is run),
+ * the benchmark is run from the project directory.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    @Param({"false", "true"})
+    private boolean appCds;
+
+    @Param({"target/bank-statement-helper-1.0-release.jar"})
+    private String jar;
+
+    @Param({"target/rocketParser.jsa"})
+    private String archive;
+
+    private Path directory;
+    private Path report;
+    private List<String> command;
+    private Process process;
+
+    private static void delete(Path directory) throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory);
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("startup");
+        Path statement = directory.resolve("statement.csv");
+        Path config = directory.resolve("KeyWordsToCategoryMap.json");
+        StatementGenerator generator = new StatementGenerator(42);
+        try (OutputStream out = Files.newOutputStream(statement)) {
+            generator.writeStatement(BankFormatType.RAIF, 10, out);
+        }
+        generator.writeKeyWordsToCategoryMap(1000, config.toFile());
+
+        command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (appCds) {
+            // Archive is usable only with the same class path as it is dumped with
+            command.add("-Xshare:on");
+            command.add("-XX:SharedArchiveFile=" + new File(archive).getAbsolutePath());
+        }
+        command.add("-jar");
+        command.add(new File(jar).getAbsolutePath());
+        command.add("-q");
+        command.add("-m");
+        command.add(config.toString());
+        command.add(statement.toString());
+        report = directory.resolve("report.csv");
+        command.add(report.toString());
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteReport() throws IOException {
+        Files.deleteIfExists(report);
+    }
+
+    @TearDown(Level.Invocation)
+    public void waitForExit() throws InterruptedException {
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Run failed with exit code " + exitCode + ": " + command);
+        }
+    }
+
+    /**
+     * @return true if report has header and at least one row
+     */
+    private boolean hasFirstRow() throws IOException {
+        if (!Files.exists(report)) {
+            return false;
+        }
+        int lines = 0;
+        for (byte b : Files.readAllBytes(report)) {
+            if (b == '\n' && ++lines == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(directory);
+    }
+
+    @Benchmark
+    public Process runToFirstRow() throws IOException {
+        process = new ProcessBuilder(command)
+                .inheritIO()
+                .start();
+        while (!hasFirstRow()) {
+            if (!process.isAlive() && !hasFirstRow()) {
+                throw new IllegalStateException("Run ended without report rows, exit code " + process.exitValue() + ": " + command);
+            }
+            Thread.yield();
+        }
+        return process;
+    }
+}
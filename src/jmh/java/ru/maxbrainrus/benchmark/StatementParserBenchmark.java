@@ -0,0 +1,57 @@
+package ru.maxbrainrus.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxbrainrus.parser.StringPool;
+import ru.maxbrainrus.parser.statement.AlfaStatementParser;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.CsvStatementParser;
+import ru.maxbrainrus.parser.statement.RaiffeisenStatementParser;
+import ru.maxbrainrus.parser.statement.StatementReadMode;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementParserBenchmark {
+    @Param({"RAIF", "ALFA"})
+    private BankFormatType bankFormatType;
+
+    @Param({"1000", "100000"})
+    private int rows;
+
+    @Param({"COMMONS_CSV", "CHANNEL"})
+    private StatementReadMode readMode;
+
+    private byte[] statement;
+    private CsvStatementParser parser;
+
+    @Setup
+    public void setUp() {
+        statement = BenchmarkData.statement(bankFormatType, rows);
+        parser = bankFormatType == BankFormatType.RAIF
+                ? new RaiffeisenStatementParser(new StringPool(), readMode)
+                : new AlfaStatementParser(new StringPool(), readMode);
+    }
+
+    @Benchmark
+    public List<MoneyTransaction> parseStatement() {
+        return parser.parseBankStatement(new ByteArrayInputStream(statement), "wallet");
+    }
+}
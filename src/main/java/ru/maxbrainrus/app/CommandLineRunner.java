@@ -2,27 +2,30 @@ package ru.maxbrainrus.app;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
-import lombok.extern.slf4j.Slf4j;
+import lombok.SneakyThrows;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
-import ru.maxbrainrus.config.ConfigValue;
-import ru.maxbrainrus.config.KeyWordsToCategoryMapJsonParser;
-import ru.maxbrainrus.parser.ReportGeneratorFacade;
+import ru.maxbrainrus.config.KeyWordMatcher;
+import ru.maxbrainrus.config.KeyWordMatcherCache;
+import ru.maxbrainrus.parser.ReportGenerator;
+import ru.maxbrainrus.parser.ReportOptions;
 import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.StatementDateOrder;
+import ru.maxbrainrus.parser.statement.StatementReadMode;
+import ru.maxbrainrus.server.ReportServer;
 
 import java.io.File;
+import java.net.InetSocketAddress;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
-import java.util.Map;
 import java.util.Optional;
 
-@Slf4j
 @CommandLine.Command(name = "rocketParser", mixinStandardHelpOptions = true, version = "1.0")
 public class CommandLineRunner implements Runnable {
     public static final String DEFAULT_KEY_WORDS_TO_CATEGORY_MAP_JSON_PATH = "KeyWordsToCategoryMap.json";
-    public static final String customCategoryMapOptionDescription = "Specific path to json file with map {\"key word\":\"category\"} for auto filling of category for transactions. By default try to use " + DEFAULT_KEY_WORDS_TO_CATEGORY_MAP_JSON_PATH + " in the app working directory";
+    public static final String customCategoryMapOptionDescription = "Specific path to json file with map {\"key word\":\"category\"} for auto filling of category for transactions. By default try to use " + DEFAULT_KEY_WORDS_TO_CATEGORY_MAP_JSON_PATH + " in the app working directory. Compiled map is cached in the file with '.bin' suffix next to it";
     public static final String DATE_PATTERN = "dd-MM-yyyy";
 
     @CommandLine.Option(names = {"-m", "--custom-category-map"},
@@ -39,22 +42,66 @@ public class CommandLineRunner implements Runnable {
             defaultValue = "Рокет карта")
     private String sourceWallet;
 
-    @CommandLine.Parameters(index = "0", descriptionKey = "source.scv", description = "bank statement file")
+    @CommandLine.Parameters(index = "0", arity = "0..1", descriptionKey = "source.scv",
+            description = "bank statement file: csv, csv compressed with gzip (.gz) or zip (.zip) of several statements. Not used in watch-folder mode")
     private String sourceStatementFilename;
 
-    @CommandLine.Parameters(index = "1", descriptionKey = "report.csv", description = "result report filename",
+    @CommandLine.Parameters(index = "1", descriptionKey = "report.csv", description = "result report filename. Report is compressed with gzip if the name ends with .gz",
             defaultValue = "report.csv")
     private String reportFilename;
 
     @CommandLine.Option(names = {"-b", "--bank_format"},
-            description = "Bank statement format type",
-            defaultValue = "RAIF")
+            description = "Bank statement format type: ${COMPLETION-CANDIDATES}. By default it's detected by statement header")
     private BankFormatType bankFormatType;
 
+    @CommandLine.Option(names = {"-p", "--parallel"},
+            description = "Parse statement on several cores. Whole statement is loaded into memory")
+    private boolean isParallel;
+
+    @CommandLine.Option(names = {"-r", "--read-mode"},
+            description = "How statement is read: ${COMPLETION-CANDIDATES}. MAPPED maps the file into memory",
+            defaultValue = "CHANNEL")
+    private StatementReadMode readMode;
+
+    @CommandLine.Option(names = {"-k", "--checkpoint-dir"},
+            description = "Incremental mode: keep checkpoint of the wallet in this directory and export only transactions not exported before")
+    private File checkpointDirectory;
+
+    @CommandLine.Option(names = {"-o", "--date-order"},
+            description = "Order of transaction dates in statement: ${COMPLETION-CANDIDATES}. Reading of DESCENDING statement stops at already exported transactions",
+            defaultValue = "UNKNOWN")
+    private StatementDateOrder dateOrder;
+
+    @CommandLine.Option(names = {"-d", "--dedup-index"},
+            description = "File with fingerprints of exported transactions. Transactions already exported with it (e.g. from overlapping statements) are removed from report")
+    private File deduplicationIndex;
+
+    @CommandLine.Option(names = {"-j", "--metrics-json"},
+            description = "Write row counts and time of pipeline stages to this json file")
+    private File metricsFile;
+
+    @CommandLine.Option(names = {"-g", "--summary"},
+            description = "Write totals by month, operation type, category and wallet to this csv file. It's compressed with gzip if the name ends with .gz")
+    private File summaryFile;
+
+    @CommandLine.Option(names = {"-i", "--inbox"},
+            description = "Watch-folder mode: make report of each statement dropped into this directory. " +
+                    "Statements are moved with their reports to '" + InboxWatcher.DONE_DIRECTORY + "' or '" + InboxWatcher.FAILED_DIRECTORY + "' subdirectories")
+    private File inbox;
+
+    @CommandLine.Option(names = {"-s", "--server-port"},
+            description = "Server mode: convert statements posted to http://host:port" + ReportServer.REPORT_PATH +
+                    "?format=..&wallet=..&cutDate=" + ReportServer.DATE_PATTERN + ". Omitted parameters are taken from command line options")
+    private Integer serverPort;
+
     @CommandLine.Option(names = {"-q", "--quiet"},
             description = "Quiet output - only show errors")
     private boolean isQuiet;
 
+    @CommandLine.Option(names = {"-v", "--verbose"},
+            description = "Verbose output - also log every transaction")
+    private boolean isVerbose;
+
 
     public static void main(String[] args) {
         CommandLine.run(new CommandLineRunner(), args);
@@ -69,31 +116,65 @@ public class CommandLineRunner implements Runnable {
     }
 
     @Override
+    @SneakyThrows
     public void run() {
         setLoggerLevel();
-        Map<String, ConfigValue> keyWordsToCategoryOrWalletMap = getKeyWordsToCategoryOrWalletMapping();
+        KeyWordMatcher keyWordMatcher = getKeyWordMatcher();
+        ReportOptions options = createReportOptions();
+        if (serverPort != null) {
+            new ReportServer(keyWordMatcher, options, new InetSocketAddress(serverPort)).start();
+            return;
+        }
+        ReportGenerator reportGenerator = new ReportGenerator(keyWordMatcher, options);
+        if (inbox != null) {
+            new InboxWatcher(inbox.toPath(), reportGenerator).run();
+            return;
+        }
+        if (sourceStatementFilename == null) {
+            throw new IllegalArgumentException("Bank statement file is required");
+        }
+        reportGenerator.makeReport(sourceStatementFilename, reportFilename);
+    }
+
+    private ReportOptions createReportOptions() {
         LocalDate cutDate = parseCutDate(cutDateStringValue);
-        ReportGeneratorFacade.makeReport(sourceStatementFilename, reportFilename, keyWordsToCategoryOrWalletMap, cutDate, sourceWallet, bankFormatType);
+        return ReportOptions.builder()
+                .cutDate(cutDate)
+                .sourceWallet(sourceWallet)
+                .bankFormatType(bankFormatType)
+                .parallelParsing(isParallel)
+                .readMode(readMode)
+                .checkpointDirectory(checkpointDirectory == null ? null : checkpointDirectory.toPath())
+                .dateOrder(dateOrder)
+                .deduplicationIndex(deduplicationIndex == null ? null : deduplicationIndex.toPath())
+                .metricsFile(metricsFile == null ? null : metricsFile.toPath())
+                .summaryFile(summaryFile == null ? null : summaryFile.toPath())
+                .build();
     }
 
     private void setLoggerLevel() {
+        Logger root = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
         if (isQuiet) {
-            Logger root = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
             root.setLevel(Level.ERROR);
+        } else if (isVerbose) {
+            root.setLevel(Level.DEBUG);
+        } else {
+            root.setLevel(Level.INFO);
         }
     }
 
-    private Map<String, ConfigValue> getKeyWordsToCategoryOrWalletMapping() {
+    private KeyWordMatcher getKeyWordMatcher() {
         return getConfigFileMapKeyWordsToCategory()
-                .map(KeyWordsToCategoryMapJsonParser::parseConfigJson)
-                .orElse(Collections.emptyMap());
+                .map(KeyWordMatcherCache::load)
+                .orElseGet(() -> KeyWordMatcher.compile(Collections.emptyMap()));
     }
 
     private Optional<File> getConfigFileMapKeyWordsToCategory() {
         if (pathToKeyWordToMapConfig.isFile() && pathToKeyWordToMapConfig.exists()) {
             return Optional.of(pathToKeyWordToMapConfig);
         }
-        log.warn("File config with category mapping is not found. Transactions won't be categorized");
+        // No static logger, so logging is configured by the first record and help or usage errors are printed without it
+        LoggerFactory.getLogger(CommandLineRunner.class).warn("File config with category mapping is not found. Transactions won't be categorized");
         return Optional.empty();
     }
 }
@@ -0,0 +1,158 @@
+package ru.maxbrainrus.app;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.maxbrainrus.parser.ReportGenerator;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watch-folder mode: makes report of each statement dropped into inbox directory with one warm {@link ReportGenerator}.
+ * <p>
+ * Processed statement is moved to "done" subdirectory of inbox together with its report "&lt;statement&gt;.report.csv".
+ * Statement which failed is moved to "failed" with partially written report if any.
+ * Hidden files are ignored, so a statement can be copied as hidden file and then renamed to appear at once.
+ * Otherwise the file is processed when its size and modification time stop changing.
+ * File error (e.g. statement removed while it's checked) is logged and watching goes on.
+ */
+@Slf4j
+public class InboxWatcher {
+    static final String DONE_DIRECTORY = "done";
+    static final String FAILED_DIRECTORY = "failed";
+    static final String REPORT_SUFFIX = ".report.csv";
+
+    private static final long WRITE_CHECK_INTERVAL_MILLIS = 500;
+
+    private final Path inbox;
+    private final Path done;
+    private final Path failed;
+    private final ReportGenerator reportGenerator;
+
+    public InboxWatcher(Path inbox, ReportGenerator reportGenerator) {
+        this.inbox = inbox;
+        this.done = inbox.resolve(DONE_DIRECTORY);
+        this.failed = inbox.resolve(FAILED_DIRECTORY);
+        this.reportGenerator = reportGenerator;
+    }
+
+    private static boolean isStatement(Path file) {
+        return Files.isRegularFile(file) && !file.getFileName().toString().startsWith(".");
+    }
+
+    /**
+     * @return path in directory with the file name, suffixed with "-N" if such file already exists
+     */
+    static Path getFreePath(Path directory, String fileName) {
+        Path result = directory.resolve(fileName);
+        int dot = fileName.lastIndexOf('.');
+        String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        for (int i = 1; Files.exists(result) || Files.exists(getReportPath(result)); i++) {
+            result = directory.resolve(name + "-" + i + extension);
+        }
+        return result;
+    }
+
+    static Path getReportPath(Path statement) {
+        return statement.resolveSibling(statement.getFileName() + REPORT_SUFFIX);
+    }
+
+    private static void waitUntilWritten(Path file) throws IOException, InterruptedException {
+        long size;
+        long lastModified;
+        do {
+            size = Files.size(file);
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+            Thread.sleep(WRITE_CHECK_INTERVAL_MILLIS);
+        } while (Files.size(file) != size || Files.getLastModifiedTime(file).toMillis() != lastModified);
+    }
+
+    /**
+     * Processes statements already in inbox and then each new one until the thread is interrupted
+     */
+    @SneakyThrows
+    public void run() {
+        try (WatchService watchService = inbox.getFileSystem().newWatchService()) {
+            // Registered before the first scan, so statements dropped during it are not missed
+            inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            log.info("Watching {} for statements", inbox);
+            processInbox();
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        processInbox();
+                    } else {
+                        processIfStatement(inbox.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    log.error("Inbox {} is not accessible anymore", inbox);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.info("Watching {} is stopped", inbox);
+        }
+    }
+
+    /**
+     * Processes all statements in inbox in order of their names
+     */
+    void processInbox() throws IOException, InterruptedException {
+        Files.createDirectories(done);
+        Files.createDirectories(failed);
+        List<Path> statements;
+        try (Stream<Path> files = Files.list(inbox)) {
+            statements = files.filter(InboxWatcher::isStatement)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path statement : statements) {
+            processIfStatement(statement);
+        }
+    }
+
+    private void processIfStatement(Path file) throws InterruptedException {
+        if (!isStatement(file)) {
+            return;
+        }
+        try {
+            waitUntilWritten(file);
+            process(file);
+        } catch (IOException e) {
+            log.error("Statement {} is not processed", file, e);
+        }
+    }
+
+    private void process(Path statement) throws IOException {
+        String fileName = statement.getFileName().toString();
+        Path processedStatement = getFreePath(done, fileName);
+        Path report = getReportPath(processedStatement);
+        log.info("Processing statement {}", statement);
+        try {
+            reportGenerator.makeReport(statement.toString(), report.toString());
+        } catch (Exception e) {
+            log.error("Report of statement {} is not created", statement, e);
+            Path failedStatement = getFreePath(failed, fileName);
+            Files.move(statement, failedStatement, StandardCopyOption.ATOMIC_MOVE);
+            if (Files.exists(report)) {
+                Files.move(report, getReportPath(failedStatement), StandardCopyOption.ATOMIC_MOVE);
+            }
+            return;
+        }
+        Files.move(statement, processedStatement, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Report {} is created", report);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.maxbrainrus.app;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import ru.maxbrainrus.generator.StatementGenerator;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+@Slf4j
+@CommandLine.Command(name = "statementGenerator", mixinStandardHelpOptions = true, version = "1.0",
+        description = "Generates synthetic bank statement (and keyword map) for load testing")
+public class StatementGeneratorRunner implements Runnable {
+
+    @CommandLine.Option(names = {"-b", "--bank_format"},
+            description = "Bank statement format type",
+            defaultValue = "RAIF")
+    private BankFormatType bankFormatType;
+
+    @CommandLine.Option(names = {"-n", "--rows"},
+            description = "Count of transactions in statement",
+            defaultValue = "100000")
+    private long rows;
+
+    @CommandLine.Option(names = {"-s", "--seed"},
+            description = "Seed of random generator. The same seed gives the same files",
+            defaultValue = "1")
+    private long seed;
+
+    @CommandLine.Option(names = {"-m", "--category-map"},
+            description = "Also write keyword -> category map json to this file")
+    private File keyWordsToCategoryMapFile;
+
+    @CommandLine.Option(names = {"-k", "--key-words"},
+            description = "Count of keywords in generated keyword -> category map",
+            defaultValue = "1000")
+    private int keyWords;
+
+    @CommandLine.Parameters(index = "0", description = "generated statement filename")
+    private File statementFile;
+
+    public static void main(String[] args) {
+        CommandLine.run(new StatementGeneratorRunner(), args);
+    }
+
+    @Override
+    @SneakyThrows
+    public void run() {
+        StatementGenerator generator = new StatementGenerator(seed);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(statementFile))) {
+            generator.writeStatement(bankFormatType, rows, out);
+        }
+        log.info("Statement {} with {} transactions is generated", statementFile, rows);
+        if (keyWordsToCategoryMapFile != null) {
+            generator.writeKeyWordsToCategoryMap(keyWords, keyWordsToCategoryMapFile);
+            log.info("Keyword map {} with {} keywords is generated", keyWordsToCategoryMapFile, keyWords);
+        }
+    }
+}
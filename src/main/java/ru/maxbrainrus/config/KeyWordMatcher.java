@@ -0,0 +1,254 @@
+package ru.maxbrainrus.config;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Aho-Corasick automaton compiled from keyword -> config map.
+ * <p>
+ * Keywords are lower-cased once at compile time, so a description is lower-cased and scanned only once.
+ * If description contains several keywords, the value of the first declared keyword is returned
+ * (the same result as iterating over the source {@link java.util.LinkedHashMap} and checking {@code contains}).
+ */
+public class KeyWordMatcher {
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+    private static final int ROOT = 0;
+    private static final int NO_STRING = -1;
+
+    private final ConfigValue[] configValues;
+    // Transitions of node n are edgeChars/edgeTargets[edgeOffsets[n] .. edgeOffsets[n + 1]), sorted by char
+    private final int[] edgeOffsets;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] failureLinks;
+    // The lowest declaration index of keywords ending in node (including keywords ending in its suffixes)
+    private final int[] firstKeyWordIndexes;
+
+    private KeyWordMatcher(ConfigValue[] configValues, int[] edgeOffsets, char[] edgeChars, int[] edgeTargets,
+                           int[] failureLinks, int[] firstKeyWordIndexes) {
+        this.configValues = configValues;
+        this.edgeOffsets = edgeOffsets;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.failureLinks = failureLinks;
+        this.firstKeyWordIndexes = firstKeyWordIndexes;
+    }
+
+    public static KeyWordMatcher compile(Map<String, ConfigValue> keyWordsToConfigMap) {
+        ConfigValue[] configValues = new ConfigValue[keyWordsToConfigMap.size()];
+        Map<Long, Integer> transitions = new HashMap<>();
+        int[] firstKeyWordIndexes = new int[]{NO_MATCH};
+        int nodeCount = 1;
+        int keyWordIndex = 0;
+        for (Map.Entry<String, ConfigValue> entry : keyWordsToConfigMap.entrySet()) {
+            configValues[keyWordIndex] = entry.getValue();
+            String keyWord = entry.getKey().toLowerCase();
+            int node = ROOT;
+            for (int i = 0; i < keyWord.length(); i++) {
+                Long transitionKey = transitionKey(node, keyWord.charAt(i));
+                Integer next = transitions.get(transitionKey);
+                if (next == null) {
+                    next = nodeCount++;
+                    transitions.put(transitionKey, next);
+                    if (firstKeyWordIndexes.length < nodeCount) {
+                        int oldLength = firstKeyWordIndexes.length;
+                        firstKeyWordIndexes = Arrays.copyOf(firstKeyWordIndexes, oldLength * 2);
+                        Arrays.fill(firstKeyWordIndexes, oldLength, firstKeyWordIndexes.length, NO_MATCH);
+                    }
+                }
+                node = next;
+            }
+            firstKeyWordIndexes[node] = Math.min(firstKeyWordIndexes[node], keyWordIndex);
+            keyWordIndex++;
+        }
+        firstKeyWordIndexes = Arrays.copyOf(firstKeyWordIndexes, nodeCount);
+
+        long[] sortedKeys = new long[transitions.size()];
+        int k = 0;
+        for (Long transitionKey : transitions.keySet()) {
+            sortedKeys[k++] = transitionKey;
+        }
+        // Sorting by (node, char) groups transitions of each node together
+        Arrays.sort(sortedKeys);
+        int[] edgeOffsets = new int[nodeCount + 1];
+        char[] edgeChars = new char[sortedKeys.length];
+        int[] edgeTargets = new int[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            edgeOffsets[(int) (sortedKeys[i] >>> 16) + 1]++;
+            edgeChars[i] = (char) sortedKeys[i];
+            edgeTargets[i] = transitions.get(sortedKeys[i]);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            edgeOffsets[node + 1] += edgeOffsets[node];
+        }
+
+        KeyWordMatcher matcher = new KeyWordMatcher(configValues, edgeOffsets, edgeChars, edgeTargets,
+                new int[nodeCount], firstKeyWordIndexes);
+        matcher.buildFailureLinks();
+        return matcher;
+    }
+
+    /**
+     * Reads automaton written by {@link #writeTo(DataOutput)}
+     */
+    static KeyWordMatcher readFrom(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            char[] chars = new char[buffer.getInt()];
+            buffer.asCharBuffer().get(chars);
+            skip(buffer, chars.length * Character.BYTES);
+            strings[i] = new String(chars);
+        }
+        ConfigValue[] configValues = new ConfigValue[buffer.getInt()];
+        for (int i = 0; i < configValues.length; i++) {
+            int category = buffer.getInt();
+            int additionalDescription = buffer.getInt();
+            configValues[i] = ConfigValue.builder()
+                    .category(category == NO_STRING ? null : strings[category])
+                    .additionalDescription(additionalDescription == NO_STRING ? null : strings[additionalDescription])
+                    .build();
+        }
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        int[] edgeOffsets = readInts(buffer, nodeCount + 1);
+        char[] edgeChars = new char[edgeCount];
+        buffer.asCharBuffer().get(edgeChars);
+        skip(buffer, edgeCount * Character.BYTES);
+        return new KeyWordMatcher(configValues, edgeOffsets, edgeChars, readInts(buffer, edgeCount),
+                readInts(buffer, nodeCount), readInts(buffer, nodeCount));
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        skip(buffer, count * Integer.BYTES);
+        return result;
+    }
+
+    /**
+     * Moves position past bytes read by a view buffer. Buffer.position(int) is called, because its ByteBuffer override
+     * is Java 9+ and would fail on Java 8 runtime
+     */
+    private static void skip(ByteBuffer buffer, int bytes) {
+        ((Buffer) buffer).position(buffer.position() + bytes);
+    }
+
+    private static void addString(Map<String, Integer> stringIndexes, String value) {
+        if (value != null) {
+            stringIndexes.putIfAbsent(value, stringIndexes.size());
+        }
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static long transitionKey(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+
+    private void buildFailureLinks() {
+        int[] queue = new int[failureLinks.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = ROOT;
+        while (head < tail) {
+            int node = queue[head++];
+            int failure = failureLinks[node];
+            if (node != ROOT) {
+                firstKeyWordIndexes[node] = Math.min(firstKeyWordIndexes[node], firstKeyWordIndexes[failure]);
+            }
+            for (int edge = edgeOffsets[node]; edge < edgeOffsets[node + 1]; edge++) {
+                int child = edgeTargets[edge];
+                failureLinks[child] = node == ROOT ? ROOT : step(failure, edgeChars[edge]);
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    private int transition(int node, char c) {
+        int low = edgeOffsets[node];
+        int high = edgeOffsets[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleChar = edgeChars[middle];
+            if (middleChar < c) {
+                low = middle + 1;
+            } else if (middleChar > c) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+        return -1;
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            int next = transition(node, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (node == ROOT) {
+                return ROOT;
+            }
+            node = failureLinks[node];
+        }
+    }
+
+    /**
+     * @return config value of the first declared keyword contained in description (case insensitive)
+     */
+    public Optional<ConfigValue> findFirst(String description) {
+        int firstKeyWordIndex = firstKeyWordIndexes[ROOT];
+        String text = description.toLowerCase();
+        int node = ROOT;
+        for (int i = 0; i < text.length() && firstKeyWordIndex > 0; i++) {
+            node = step(node, text.charAt(i));
+            firstKeyWordIndex = Math.min(firstKeyWordIndex, firstKeyWordIndexes[node]);
+        }
+        return firstKeyWordIndex == NO_MATCH ? Optional.empty() : Optional.of(configValues[firstKeyWordIndex]);
+    }
+
+    /**
+     * Writes compiled automaton, so it can be loaded by {@link #readFrom(ByteBuffer)} without compiling.
+     * Equal strings of config values are written once.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+        for (ConfigValue configValue : configValues) {
+            addString(stringIndexes, configValue.getCategory());
+            addString(stringIndexes, configValue.getAdditionalDescription());
+        }
+        out.writeInt(stringIndexes.size());
+        for (String string : stringIndexes.keySet()) {
+            out.writeInt(string.length());
+            out.writeChars(string);
+        }
+        out.writeInt(configValues.length);
+        for (ConfigValue configValue : configValues) {
+            out.writeInt(stringIndexes.getOrDefault(configValue.getCategory(), NO_STRING));
+            out.writeInt(stringIndexes.getOrDefault(configValue.getAdditionalDescription(), NO_STRING));
+        }
+        out.writeInt(failureLinks.length);
+        out.writeInt(edgeChars.length);
+        writeInts(out, edgeOffsets);
+        out.writeChars(new String(edgeChars));
+        writeInts(out, edgeTargets);
+        writeInts(out, failureLinks);
+        writeInts(out, firstKeyWordIndexes);
+    }
+
+    public int size() {
+        return configValues.length;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.maxbrainrus.config;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Loads {@link KeyWordMatcher} of json config with binary cache of compiled automaton.
+ * <p>
+ * Cache file "&lt;config&gt;.bin" is kept next to the config and is valid while SHA-256 of config content
+ * is the same as the one in its header. Valid cache is mapped into memory and read without parsing json and compiling,
+ * otherwise the config is parsed, compiled and the cache is rewritten. Config is usable even if cache can't be written.
+ */
+@Slf4j
+public class KeyWordMatcherCache {
+    static final String CACHE_FILE_SUFFIX = ".bin";
+
+    private static final int MAGIC = 0x4B574D43;
+    private static final int VERSION = 1;
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    @SneakyThrows
+    public static KeyWordMatcher load(File config) {
+        byte[] content = Files.readAllBytes(config.toPath());
+        byte[] hash = MessageDigest.getInstance(HASH_ALGORITHM).digest(content);
+        Path cacheFile = getCacheFile(config.toPath());
+        Optional<KeyWordMatcher> cached = readCache(cacheFile, hash);
+        if (cached.isPresent()) {
+            log.info("Compiled config of {} keywords is loaded from {}", cached.get().size(), cacheFile);
+            return cached.get();
+        }
+        KeyWordMatcher matcher = KeyWordMatcher.compile(KeyWordsToCategoryMapJsonParser.parseConfigJson(new ByteArrayInputStream(content)));
+        writeCache(cacheFile, hash, matcher);
+        return matcher;
+    }
+
+    static Path getCacheFile(Path config) {
+        return config.resolveSibling(config.getFileName() + CACHE_FILE_SUFFIX);
+    }
+
+    private static Optional<KeyWordMatcher> readCache(Path cacheFile, byte[] hash) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Optional.empty();
+            }
+            byte[] cachedHash = new byte[buffer.getInt()];
+            buffer.get(cachedHash);
+            if (!Arrays.equals(cachedHash, hash)) {
+                log.info("Config is changed, cache {} is outdated", cacheFile);
+                return Optional.empty();
+            }
+            return Optional.of(KeyWordMatcher.readFrom(buffer));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cache {} of compiled config can't be read", cacheFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private static void writeCache(Path cacheFile, byte[] hash, KeyWordMatcher matcher) {
+        Path temporaryFile = null;
+        try {
+            temporaryFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(hash.length);
+                out.write(hash);
+                matcher.writeTo(out);
+            }
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Compiled config is saved to {}", cacheFile);
+        } catch (IOException e) {
+            log.warn("Cache {} of compiled config can't be written", cacheFile, e);
+            if (temporaryFile != null) {
+                temporaryFile.toFile().delete();
+            }
+        }
+    }
+}
@@ -1,37 +1,81 @@
 package ru.maxbrainrus.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
+/**
+ * Reads json object {"key word": "category", "other key word": ["category", "additional description"], ...}
+ * token by token, so no intermediate tree or maps are built.
+ */
 public class KeyWordsToCategoryMapJsonParser {
-    @SuppressWarnings("unchecked")
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     public static Map<String, ConfigValue> parseConfigJson(File config) {
-        try {
-            LinkedHashMap<String, Object> configFromFile = new ObjectMapper().readValue(config, LinkedHashMap.class);
-            LinkedHashMap<String, ConfigValue> result = new LinkedHashMap<>();
-            configFromFile.forEach((keyWord, configValue) -> {
-                if (configValue instanceof String) {
-                    result.put(keyWord, ConfigValue.builder()
-                            .category((String) configValue)
-                            .build());
-                } else if (configValue instanceof List) {
-                    List<String> listOfValues = (List<String>) configValue;
-                    result.put(keyWord, ConfigValue.builder()
-                            .category(listOfValues.get(0))
-                            .additionalDescription(listOfValues.get(1))
-                            .build());
-                } else {
-                    throw new IllegalArgumentException(String.format("Can't parse config value: %s -> %s", keyWord, configValue));
-                }
-            });
-            return result;
+        try (InputStream in = Files.newInputStream(config.toPath())) {
+            return parseConfigJson(in);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    public static Map<String, ConfigValue> parseConfigJson(InputStream config) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(config)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Config must be json object: " + parser.getCurrentLocation());
+            }
+            LinkedHashMap<String, ConfigValue> result = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String keyWord = parser.getCurrentName();
+                result.put(keyWord, parseConfigValue(parser, keyWord));
+            }
+            return result;
+        }
+    }
+
+    private static ConfigValue parseConfigValue(JsonParser parser, String keyWord) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return ConfigValue.builder()
+                    .category(parser.getText())
+                    .build();
+        }
+        if (token == JsonToken.START_ARRAY) {
+            String category = nextString(parser);
+            String additionalDescription = nextString(parser);
+            if (category != null && additionalDescription != null) {
+                skipRestOfArray(parser);
+                return ConfigValue.builder()
+                        .category(category)
+                        .additionalDescription(additionalDescription)
+                        .build();
+            }
+        }
+        throw new IllegalArgumentException(String.format("Can't parse config value of %s: %s", keyWord, parser.getCurrentLocation()));
+    }
+
+    private static void skipRestOfArray(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IllegalArgumentException("Unexpected end of config: " + parser.getCurrentLocation());
+            }
+            parser.skipChildren();
+        }
+    }
+
+    /**
+     * @return the next array element or null if array is over or the element is not scalar value
+     */
+    private static String nextString(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        return token != null && token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+    }
 }
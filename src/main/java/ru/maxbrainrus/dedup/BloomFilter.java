@@ -0,0 +1,83 @@
+package ru.maxbrainrus.dedup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Bloom filter of 64-bit fingerprints. Fingerprints are already good hashes,
+ * so bit positions are derived from their halves by double hashing.
+ */
+public class BloomFilter {
+    private static final int BITS_PER_ENTRY = 10;
+    // Optimal for 10 bits per entry, about 1% of false positives
+    private static final int HASH_FUNCTIONS = 7;
+    private static final int MIN_ENTRIES = 1 << 16;
+
+    private final long[] bits;
+    private final int hashFunctions;
+
+    private BloomFilter(long[] bits, int hashFunctions) {
+        this.bits = bits;
+        this.hashFunctions = hashFunctions;
+    }
+
+    public static BloomFilter forEntries(long expectedEntries) {
+        long bitCount = Math.max(expectedEntries, MIN_ENTRIES) * BITS_PER_ENTRY;
+        if (bitCount / Long.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Too many entries for bloom filter: %d", expectedEntries));
+        }
+        return new BloomFilter(new long[(int) ((bitCount + Long.SIZE - 1) / Long.SIZE)], HASH_FUNCTIONS);
+    }
+
+    public static BloomFilter readFrom(DataInputStream in) throws IOException {
+        int hashFunctions = in.readInt();
+        long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return new BloomFilter(bits, hashFunctions);
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(hashFunctions);
+        out.writeInt(bits.length);
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    private long bitIndex(long fingerprint, int i) {
+        int low = (int) fingerprint;
+        int high = (int) (fingerprint >>> 32);
+        long combined = low + (long) i * high;
+        return Math.floorMod(combined, (long) bits.length * Long.SIZE);
+    }
+
+    public void add(long fingerprint) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = bitIndex(fingerprint, i);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    /**
+     * @return false if fingerprint was never added, true if it probably was
+     */
+    public boolean mightContain(long fingerprint) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = bitIndex(fingerprint, i);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return size of the filter in bytes
+     */
+    public long getSizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.maxbrainrus.dedup;
+
+import lombok.SneakyThrows;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TransactionFingerprint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Removes transactions which are already in {@link FingerprintIndex}, e.g. from overlapping statements
+ * processed before, and adds fingerprints of the rest to the index on {@link #commit()}.
+ * <p>
+ * Equal transactions of one statement are not duplicates: the n-th of them is compared
+ * with the n-th one of other statements by fingerprint with ordinal (see {@link TransactionFingerprint#withOrdinal(long, int)}).
+ */
+public class DuplicateFilter implements Closeable {
+    private final FingerprintIndex index;
+    private final Map<Long, Integer> occurrences = new HashMap<>();
+    private long[] added = new long[1024];
+    private int addedCount;
+    private long duplicates;
+
+    public DuplicateFilter(FingerprintIndex index) {
+        this.index = index;
+    }
+
+    public Stream<MoneyTransaction> filter(Stream<MoneyTransaction> transactions) {
+        return transactions.filter(this::isUnique);
+    }
+
+    @SneakyThrows
+    private boolean isUnique(MoneyTransaction transaction) {
+        long fingerprint = TransactionFingerprint.of(transaction);
+        int ordinal = occurrences.merge(fingerprint, 1, Integer::sum) - 1;
+        fingerprint = TransactionFingerprint.withOrdinal(fingerprint, ordinal);
+        if (index.contains(fingerprint)) {
+            duplicates++;
+            return false;
+        }
+        if (addedCount == added.length) {
+            added = Arrays.copyOf(added, addedCount * 2);
+        }
+        added[addedCount++] = fingerprint;
+        return true;
+    }
+
+    /**
+     * Saves fingerprints of passed transactions to the index, so they are duplicates for the next runs
+     */
+    public void commit() throws IOException {
+        index.merge(Arrays.copyOf(added, addedCount));
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getUnique() {
+        return addedCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        index.close();
+    }
+}
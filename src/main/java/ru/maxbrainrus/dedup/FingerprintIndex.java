@@ -0,0 +1,189 @@
+package ru.maxbrainrus.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Set of fingerprints stored on disk as sorted array of longs with bloom filter in a file next to it ("index.bloom").
+ * <p>
+ * Only the bloom filter (10 bits per fingerprint) is kept in memory. Fingerprints passed by the filter
+ * are looked up by binary search in the file. New fingerprints are merged into the index by one sequential pass,
+ * which also builds the new bloom filter.
+ */
+@Slf4j
+public class FingerprintIndex implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private final BloomFilter bloomFilter;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(Long.BYTES);
+
+    private FingerprintIndex(Path file, FileChannel channel, long size, BloomFilter bloomFilter) {
+        this.file = file;
+        this.channel = channel;
+        this.size = size;
+        this.bloomFilter = bloomFilter;
+    }
+
+    /**
+     * Opens index or empty index if file doesn't exist
+     */
+    public static FingerprintIndex open(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new FingerprintIndex(file, null, 0, BloomFilter.forEntries(0));
+        }
+        FileChannel channel = FileChannel.open(file);
+        try {
+            long size = channel.size() / Long.BYTES;
+            return new FingerprintIndex(file, channel, size, loadBloomFilter(file, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static Path getBloomFilterFile(Path file) {
+        return Paths.get(file + ".bloom");
+    }
+
+    private static BloomFilter loadBloomFilter(Path file, long size) throws IOException {
+        Path bloomFilterFile = getBloomFilterFile(file);
+        if (Files.exists(bloomFilterFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(bloomFilterFile), BUFFER_SIZE))) {
+                if (in.readLong() == size) {
+                    return BloomFilter.readFrom(in);
+                }
+            }
+        }
+        log.info("Bloom filter of {} is rebuilt", file);
+        BloomFilter bloomFilter = BloomFilter.forEntries(size);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            for (long i = 0; i < size; i++) {
+                bloomFilter.add(in.readLong());
+            }
+        }
+        saveBloomFilter(bloomFilterFile, size, bloomFilter);
+        return bloomFilter;
+    }
+
+    private static void saveBloomFilter(Path bloomFilterFile, long size, BloomFilter bloomFilter) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(bloomFilterFile), BUFFER_SIZE))) {
+            out.writeLong(size);
+            bloomFilter.writeTo(out);
+        }
+    }
+
+    private static long readOrMax(DataInputStream in, long remaining) throws IOException {
+        return remaining > 0 ? in.readLong() : Long.MAX_VALUE;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long getBloomFilterSizeInBytes() {
+        return bloomFilter.getSizeInBytes();
+    }
+
+    public boolean contains(long fingerprint) throws IOException {
+        return bloomFilter.mightContain(fingerprint) && binarySearch(fingerprint);
+    }
+
+    private boolean binarySearch(long fingerprint) throws IOException {
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long value = read(middle);
+            if (value < fingerprint) {
+                low = middle + 1;
+            } else if (value > fingerprint) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long read(long index) throws IOException {
+        // Buffer.clear(), ByteBuffer.clear() is Java 9+
+        ((Buffer) readBuffer).clear();
+        long position = index * Long.BYTES;
+        while (readBuffer.hasRemaining()) {
+            if (channel.read(readBuffer, position + readBuffer.position()) < 0) {
+                throw new EOFException(String.format("Index %s is truncated", file));
+            }
+        }
+        return readBuffer.getLong(0);
+    }
+
+    /**
+     * Writes new version of the index with added fingerprints in one pass over the current one.
+     * This index is closed after that.
+     */
+    public void merge(long[] addedFingerprints) throws IOException {
+        long[] added = addedFingerprints.clone();
+        Arrays.sort(added);
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            long mergedSize = 0;
+            BloomFilter mergedBloomFilter = BloomFilter.forEntries(size + added.length);
+            try (DataInputStream in = size == 0 ? null : new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE))) {
+                long remaining = size;
+                long current = readOrMax(in, remaining);
+                int addedIndex = 0;
+                boolean first = true;
+                long previous = 0;
+                while (remaining > 0 || addedIndex < added.length) {
+                    long next;
+                    if (remaining > 0 && (addedIndex == added.length || current <= added[addedIndex])) {
+                        next = current;
+                        current = readOrMax(in, --remaining);
+                    } else {
+                        next = added[addedIndex++];
+                    }
+                    if (first || next != previous) {
+                        out.writeLong(next);
+                        mergedBloomFilter.add(next);
+                        mergedSize++;
+                    }
+                    previous = next;
+                    first = false;
+                }
+            }
+            close();
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saveBloomFilter(getBloomFilterFile(file), mergedSize, mergedBloomFilter);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
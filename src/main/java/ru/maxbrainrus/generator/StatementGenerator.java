@@ -0,0 +1,251 @@
+package ru.maxbrainrus.generator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic bank statements and keyword -> category maps for load testing.
+ * Output depends only on the seed and arguments, so generated files can be reproduced.
+ * <p>
+ * Merchants popularity follows Zipf distribution: few merchants give most of the transactions as in real statements.
+ */
+public class StatementGenerator {
+    public static final int DEFAULT_MERCHANT_COUNT = 5000;
+
+    private static final Charset CHARSET_1251 = Charset.forName("windows-1251");
+    private static final DateTimeFormatter RAIF_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final DateTimeFormatter ALFA_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yy");
+    private static final LocalDate START_DATE = LocalDate.of(2010, 1, 1);
+    private static final int TRANSACTIONS_PER_DAY = 8;
+    private static final double ZIPF_EXPONENT = 1.1;
+
+    private static final String[] SYLLABLES = {
+            "PYA", "TE", "RO", "CH", "KA", "PE", "REK", "RES", "TOK", "YAN", "DEX", "AZ", "BU", "KA", "VK", "US",
+            "AP", "TE", "KA", "OZ", "ON", "WIL", "DBE", "RRI", "ES", "MA", "GNIT", "LEN", "TA", "AU", "CHAN", "DIX"
+    };
+    private static final String[] MERCHANT_SUFFIXES = {"", " MARKET", ".RU", " SHOP", " CAFE", " LLC", " 24"};
+    private static final String[] CITIES = {"MOSCOW", "SAINT PETERSBURG", "KAZAN", "SOCHI", "NOVOSIBIRSK"};
+    private static final String[] CATEGORIES = {
+            "Продукты", "Транспорт", "Кафе и рестораны", "Здоровье", "Одежда", "Связь", "Развлечения", "Дом"
+    };
+    private static final String[] WALLETS = {"Наличные", "Кредитная карта", "Накопительный счет"};
+    private static final String[] INCOME_DESCRIPTIONS = {
+            "Зачисление заработной платы", "Возврат покупки", "Выплата процентов по вкладу", "Кэшбэк за покупки"
+    };
+
+    private final long seed;
+    private final String[] merchants;
+    private final double[] cumulativePopularity;
+
+    public StatementGenerator(long seed) {
+        this(seed, DEFAULT_MERCHANT_COUNT);
+    }
+
+    public StatementGenerator(long seed, int merchantCount) {
+        this.seed = seed;
+        this.merchants = generateMerchants(new Random(seed), merchantCount);
+        this.cumulativePopularity = zipfCumulativeWeights(merchantCount);
+    }
+
+    private static String[] generateMerchants(Random random, int merchantCount) {
+        Set<String> result = new LinkedHashSet<>();
+        while (result.size() < merchantCount) {
+            StringBuilder sb = new StringBuilder();
+            int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) {
+                sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            sb.append(MERCHANT_SUFFIXES[random.nextInt(MERCHANT_SUFFIXES.length)]);
+            if (!result.add(sb.toString())) {
+                result.add(sb.append(' ').append(result.size()).toString());
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    private static double[] zipfCumulativeWeights(int size) {
+        double[] result = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            result[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            result[i] /= sum;
+        }
+        return result;
+    }
+
+    private static String formatRaifAmount(long minorUnits) {
+        String value = String.format(Locale.ROOT, "%,d.%02d", Math.abs(minorUnits) / 100, Math.abs(minorUnits) % 100)
+                .replace(',', ' ');
+        return minorUnits < 0 ? "-" + value : value;
+    }
+
+    private static String formatAlfaAmount(long minorUnits) {
+        long kopecks = minorUnits % 100;
+        if (kopecks == 0) {
+            return Long.toString(minorUnits / 100);
+        }
+        String value = String.format(Locale.ROOT, "%d,%02d", minorUnits / 100, kopecks);
+        return value.endsWith("0") ? value.substring(0, value.length() - 1) : value;
+    }
+
+    private static String cardNumber(Random random) {
+        return String.format(Locale.ROOT, "%06d++++++%04d", 100000 + random.nextInt(900000), random.nextInt(10000));
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String pickMerchant(Random random) {
+        int index = Arrays.binarySearch(cumulativePopularity, random.nextDouble());
+        return merchants[Math.min(index < 0 ? -index - 1 : index, merchants.length - 1)];
+    }
+
+    private static LocalDate dateOfRow(long row) {
+        return START_DATE.plusDays(row / TRANSACTIONS_PER_DAY);
+    }
+
+    private static long expenseAmount(Random random) {
+        // Mostly small purchases with a long tail of big ones
+        return 1000 + (long) (Math.exp(random.nextGaussian() * 1.2 + 6.5) * 10);
+    }
+
+    public void writeStatement(BankFormatType bankFormatType, long rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, CHARSET_1251), 1 << 16);
+        Random random = new Random(seed + bankFormatType.ordinal());
+        switch (bankFormatType) {
+            case RAIF:
+                writeRaiffeisenStatement(random, rows, writer);
+                break;
+            case ALFA:
+                writeAlfaStatement(random, rows, writer);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported BankFormatType: %s", bankFormatType));
+        }
+        writer.flush();
+    }
+
+    private void writeRaiffeisenStatement(Random random, long rows, Writer writer) throws IOException {
+        writer.write("Дата транзакции;Описание;Валюта операции;Сумма в валюте операции;Валюта счета;Сумма в валюте счета\n");
+        for (long row = 0; row < rows; row++) {
+            String description;
+            long amount;
+            int kind = random.nextInt(100);
+            if (kind < 80) {
+                description = pickMerchant(random) + " " + pick(random, CITIES) + " RUS";
+                amount = -expenseAmount(random);
+            } else if (kind < 88) {
+                description = random.nextBoolean()
+                        ? "Перевод на карту " + cardNumber(random)
+                        : "CARD2CARD " + pick(random, CITIES);
+                amount = (random.nextBoolean() ? 1 : -1) * (100000 + random.nextInt(5000000));
+            } else if (kind < 93) {
+                description = "ATM " + (10000 + random.nextInt(90000)) + " " + pick(random, CITIES);
+                amount = -100000L * (1 + random.nextInt(50));
+            } else {
+                description = pick(random, INCOME_DESCRIPTIONS);
+                amount = expenseAmount(random) * 10;
+            }
+            if (random.nextInt(50) == 0) {
+                description = "\"" + description + "\" " + pick(random, CITIES);
+                description = "\"" + description.replace("\"", "\"\"") + "\"";
+            }
+            String date = dateOfRow(row).atTime(random.nextInt(24), random.nextInt(60)).format(RAIF_DATE_FORMATTER);
+            String amountValue = formatRaifAmount(amount);
+            writer.write(date + ";" + description + ";RUB;" + amountValue + ";RUB;" + amountValue + "\n");
+        }
+    }
+
+    private void writeAlfaStatement(Random random, long rows, Writer writer) throws IOException {
+        writer.write("Тип счёта;Номер счета;Валюта;Дата операции;Референс проводки;Описание операции;Приход;Расход;\n");
+        for (long row = 0; row < rows; row++) {
+            LocalDate postingDate = dateOfRow(row);
+            String operationDate = postingDate.minusDays(random.nextInt(3)).format(ALFA_DATE_FORMATTER);
+            String postingDateValue = postingDate.format(ALFA_DATE_FORMATTER);
+            String reference = "REF" + Long.toString(row, 36).toUpperCase(Locale.ROOT);
+            String description;
+            long amount;
+            int kind = random.nextInt(100);
+            if (kind < 45) {
+                amount = -expenseAmount(random);
+                description = String.format(Locale.ROOT, "%s    %08d\\RUS\\%s\\%s            %s %s %10d.%02d  RUR MCC%04d",
+                        cardNumber(random), random.nextInt(100000000), pick(random, CITIES), pickMerchant(random),
+                        operationDate, postingDateValue, -amount / 100, -amount % 100, 1000 + random.nextInt(9000));
+            } else if (kind < 75) {
+                amount = -expenseAmount(random);
+                reference = "HOLD";
+                description = String.format(Locale.ROOT, "RU %s>%s %s %s %d.%02d RUR %s",
+                        pickMerchant(random), pick(random, CITIES), operationDate, operationDate,
+                        -amount / 100, -amount % 100, cardNumber(random));
+            } else if (kind < 82) {
+                amount = (random.nextBoolean() ? 1 : -1) * (100000 + random.nextInt(5000000));
+                description = String.format(Locale.ROOT, "%s    %06d  /RU/CARD2CARD ALFA_MOBILE>%s          %s %s %d.%02d      RUR MCC6536",
+                        cardNumber(random), random.nextInt(1000000), pick(random, CITIES),
+                        operationDate, operationDate, Math.abs(amount) / 100, Math.abs(amount) % 100);
+            } else if (kind < 88) {
+                amount = -(100000 + random.nextInt(5000000));
+                description = "Внутрибанковский перевод между счетами, ИВАНОВ И. И.";
+            } else {
+                amount = expenseAmount(random) * 10;
+                description = pick(random, INCOME_DESCRIPTIONS);
+            }
+            String income = amount > 0 ? formatAlfaAmount(amount) : "0";
+            String expense = amount < 0 ? formatAlfaAmount(-amount) : "0";
+            writer.write("Текущий счёт;40817810000000000001;RUR;" + postingDateValue + ";" + reference + ";"
+                    + description + ";" + income + ";" + expense + ";\n");
+        }
+    }
+
+    /**
+     * Keywords are the most popular merchants first, so a bigger map matches more transactions.
+     * Every 10th keyword has additional description. Transfer keywords are mapped to wallets.
+     */
+    public Map<String, ConfigValue> generateKeyWordsToCategoryMap(int size) {
+        Random random = new Random(seed);
+        Map<String, ConfigValue> result = new LinkedHashMap<>();
+        if (size >= 2) {
+            result.put("CARD2CARD", ConfigValue.builder().category(pick(random, WALLETS)).build());
+            result.put("Внутрибанковский перевод", ConfigValue.builder().category(pick(random, WALLETS)).build());
+        }
+        for (int i = 0; result.size() < size; i++) {
+            String keyWord = i < merchants.length ? merchants[i] : "UNKNOWN MERCHANT " + i;
+            ConfigValue.ConfigValueBuilder value = ConfigValue.builder().category(pick(random, CATEGORIES));
+            if (i % 10 == 0) {
+                value.additionalDescription("Регулярная покупка");
+            }
+            result.put(keyWord, value.build());
+        }
+        return result;
+    }
+
+    public void writeKeyWordsToCategoryMap(int size, File file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        generateKeyWordsToCategoryMap(size).forEach((keyWord, value) -> json.put(keyWord,
+                value.getAdditionalDescription() == null
+                        ? value.getCategory()
+                        : Arrays.asList(value.getCategory(), value.getAdditionalDescription())));
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, json);
+    }
+}
@@ -0,0 +1,19 @@
+package ru.maxbrainrus.incremental;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * What was already exported for the wallet: all transactions before the last date
+ * and transactions of the last date with given fingerprints (see {@link ru.maxbrainrus.transaction.TransactionFingerprint}).
+ */
+@Value
+@Builder
+public class Checkpoint {
+    String sourceWallet;
+    LocalDate lastDate;
+    Set<Long> lastDateFingerprints;
+}
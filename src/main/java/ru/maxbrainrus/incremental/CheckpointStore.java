@@ -0,0 +1,90 @@
+package ru.maxbrainrus.incremental;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps checkpoint of each wallet in its own json file in the directory:
+ * <pre>
+ * {"sourceWallet": "Рокет карта", "lastDate": "2020-01-31", "lastDateFingerprints": ["5d1a0c3e9b6f2a47", ...]}
+ * </pre>
+ */
+public class CheckpointStore {
+    private static final String SOURCE_WALLET = "sourceWallet";
+    private static final String LAST_DATE = "lastDate";
+    private static final String LAST_DATE_FINGERPRINTS = "lastDateFingerprints";
+
+    private CheckpointStore() {
+    }
+
+    static Path getCheckpointFile(Path directory, String sourceWallet) {
+        try {
+            return directory.resolve("checkpoint-" + URLEncoder.encode(sourceWallet, StandardCharsets.UTF_8.name()) + ".json");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Optional<Checkpoint> load(Path directory, String sourceWallet) {
+        Path file = getCheckpointFile(directory, sourceWallet);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            Map<String, Object> json = new ObjectMapper().readValue(file.toFile(), LinkedHashMap.class);
+            Set<Long> fingerprints = new HashSet<>();
+            for (String fingerprint : (List<String>) json.get(LAST_DATE_FINGERPRINTS)) {
+                fingerprints.add(Long.parseUnsignedLong(fingerprint, 16));
+            }
+            return Optional.of(Checkpoint.builder()
+                    .sourceWallet((String) json.get(SOURCE_WALLET))
+                    .lastDate(LocalDate.parse((String) json.get(LAST_DATE)))
+                    .lastDateFingerprints(fingerprints)
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException(String.format("Can't read checkpoint %s", file), e);
+        }
+    }
+
+    /**
+     * Replaces checkpoint file atomically, so interrupted run leaves the previous checkpoint
+     */
+    public static void save(Path directory, Checkpoint checkpoint) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put(SOURCE_WALLET, checkpoint.getSourceWallet());
+        json.put(LAST_DATE, checkpoint.getLastDate().toString());
+        json.put(LAST_DATE_FINGERPRINTS, new TreeSet<>(checkpoint.getLastDateFingerprints()).stream()
+                .map(fingerprint -> String.format("%016x", fingerprint))
+                .collect(Collectors.toList()));
+        try {
+            Files.createDirectories(directory);
+            Path file = getCheckpointFile(directory, checkpoint.getSourceWallet());
+            Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), json);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ru.maxbrainrus.incremental;
+
+import ru.maxbrainrus.parser.Streams;
+import ru.maxbrainrus.parser.statement.StatementDateOrder;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TransactionFingerprint;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Removes transactions exported by previous runs (see {@link Checkpoint}) and collects checkpoint for the next run.
+ * <p>
+ * Transactions of the checkpoint date are compared by fingerprints: the n-th of equal transactions of the day
+ * gets fingerprint with ordinal n, so a new equal transaction of the same day is not lost.
+ * <p>
+ * Filter must see transactions of the whole statement in the statement order once, so it's used for one sequential stream.
+ */
+public class IncrementalFilter {
+    private final String sourceWallet;
+    @Nullable
+    private final LocalDate previousDate;
+    private final Set<Long> previousFingerprints;
+    private final Map<Long, Integer> previousDateOccurrences = new HashMap<>();
+
+    @Nullable
+    private LocalDate lastDate;
+    private Set<Long> lastDateFingerprints;
+    private final Map<Long, Integer> lastDateOccurrences = new HashMap<>();
+
+    private long skipped;
+    private long passed;
+
+    public IncrementalFilter(String sourceWallet, @Nullable Checkpoint previous) {
+        this.sourceWallet = sourceWallet;
+        this.previousDate = previous == null ? null : previous.getLastDate();
+        this.previousFingerprints = previous == null ? Collections.emptySet() : previous.getLastDateFingerprints();
+        this.lastDate = previousDate;
+        this.lastDateFingerprints = new HashSet<>(previousFingerprints);
+    }
+
+    private static long nextFingerprint(MoneyTransaction transaction, Map<Long, Integer> occurrences) {
+        long fingerprint = TransactionFingerprint.of(transaction);
+        int ordinal = occurrences.merge(fingerprint, 1, Integer::sum) - 1;
+        return TransactionFingerprint.withOrdinal(fingerprint, ordinal);
+    }
+
+    /**
+     * @param dateOrder for {@link StatementDateOrder#DESCENDING} statement reading stops at the first transaction before checkpoint date
+     */
+    public Stream<MoneyTransaction> filter(Stream<MoneyTransaction> transactions, StatementDateOrder dateOrder) {
+        if (previousDate != null && dateOrder == StatementDateOrder.DESCENDING) {
+            transactions = Streams.takeWhile(transactions, transaction -> !transaction.getDate().isBefore(previousDate));
+        }
+        return transactions.filter(this::isNew);
+    }
+
+    private boolean isNew(MoneyTransaction transaction) {
+        LocalDate date = transaction.getDate();
+        if (previousDate != null && date.isBefore(previousDate)) {
+            skipped++;
+            return false;
+        }
+        if (lastDate == null || date.isAfter(lastDate)) {
+            lastDate = date;
+            lastDateFingerprints = new HashSet<>();
+            lastDateOccurrences.clear();
+        }
+        boolean isNew = true;
+        if (date.equals(previousDate)) {
+            long fingerprint = nextFingerprint(transaction, previousDateOccurrences);
+            isNew = !previousFingerprints.contains(fingerprint);
+            if (date.equals(lastDate)) {
+                lastDateFingerprints.add(fingerprint);
+            }
+        } else if (date.equals(lastDate)) {
+            lastDateFingerprints.add(nextFingerprint(transaction, lastDateOccurrences));
+        }
+        if (isNew) {
+            passed++;
+        } else {
+            skipped++;
+        }
+        return isNew;
+    }
+
+    /**
+     * @return checkpoint including this run transactions or empty if nothing was ever seen
+     */
+    public Optional<Checkpoint> getCheckpoint() {
+        return Optional.ofNullable(lastDate)
+                .map(date -> Checkpoint.builder()
+                        .sourceWallet(sourceWallet)
+                        .lastDate(date)
+                        .lastDateFingerprints(lastDateFingerprints)
+                        .build());
+    }
+
+    /**
+     * @return number of read transactions exported before
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return number of new transactions
+     */
+    public long getPassed() {
+        return passed;
+    }
+}
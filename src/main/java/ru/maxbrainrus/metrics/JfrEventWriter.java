@@ -0,0 +1,75 @@
+package ru.maxbrainrus.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The only class referring JFR API, see {@link JfrEvents}
+ */
+class JfrEventWriter {
+
+    static void emit(PipelineSummary summary) {
+        for (StageSummary stage : summary.getStages()) {
+            StageEvent event = new StageEvent();
+            if (!event.isEnabled()) {
+                // Report event is enabled separately
+                break;
+            }
+            event.input = summary.getInput();
+            event.stage = stage.getStage().name();
+            event.rowsIn = stage.getRowsIn();
+            event.rowsOut = stage.getRowsOut();
+            event.time = stage.getNanos();
+            event.commit();
+        }
+        ReportEvent event = new ReportEvent();
+        if (event.isEnabled()) {
+            event.input = summary.getInput();
+            event.rows = summary.getRows();
+            event.keyWordHits = summary.getKeyWordHits();
+            event.keyWordMisses = summary.getKeyWordMisses();
+            event.time = summary.getNanos();
+            event.commit();
+        }
+    }
+
+    @Name("ru.maxbrainrus.PipelineStage")
+    @Label("Pipeline Stage")
+    @Category("Rocket Parser")
+    @Description("Rows and time of a stage of report pipeline")
+    static class StageEvent extends Event {
+        @Label("Input")
+        String input;
+        @Label("Stage")
+        String stage;
+        @Label("Rows In")
+        long rowsIn;
+        @Label("Rows Out")
+        long rowsOut;
+        @Label("Stage Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("ru.maxbrainrus.Report")
+    @Label("Report")
+    @Category("Rocket Parser")
+    @Description("Report pipeline run")
+    static class ReportEvent extends Event {
+        @Label("Input")
+        String input;
+        @Label("Rows")
+        long rows;
+        @Label("Keyword Hits")
+        long keyWordHits;
+        @Label("Keyword Misses")
+        long keyWordMisses;
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.maxbrainrus.metrics;
+
+/**
+ * Emits pipeline metrics as Java Flight Recorder events "ru.maxbrainrus.Report" and "ru.maxbrainrus.PipelineStage"
+ * if runtime has JFR, so they can be recorded with e.g. {@code -XX:StartFlightRecording}.
+ * Event classes are loaded only if JFR API is available.
+ */
+public class JfrEvents {
+    private static final boolean AVAILABLE = isJfrAvailable();
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public static void emit(PipelineSummary summary) {
+        if (AVAILABLE) {
+            JfrEventWriter.emit(summary);
+        }
+    }
+}
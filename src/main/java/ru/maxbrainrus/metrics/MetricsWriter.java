@@ -0,0 +1,16 @@
+package ru.maxbrainrus.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+
+import java.nio.file.Path;
+
+public class MetricsWriter {
+    /**
+     * Writes summary as json object with stages array, rows, times in nanos and millis and rates in records per second
+     */
+    @SneakyThrows
+    public static void writeJson(PipelineSummary summary, Path file) {
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), summary);
+    }
+}
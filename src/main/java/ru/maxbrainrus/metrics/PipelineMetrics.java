@@ -0,0 +1,179 @@
+package ru.maxbrainrus.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Counts rows and time of stages of one report pipeline.
+ * <p>
+ * Stages of a stream run interleaved row by row, so a stage is timed around its own work on each row.
+ * Time of rows dropped by a filtering stage is not counted. Time of the final stage consuming the stream
+ * is the time of the whole stream minus time of the other stages.
+ * Not thread-safe: stream must be sequential.
+ */
+public class PipelineMetrics {
+    private static final int STAGES = PipelineStage.values().length;
+
+    private final String input;
+    private final long startNanos = System.nanoTime();
+    private final boolean[] used = new boolean[STAGES];
+    private final long[] rowsIn = new long[STAGES];
+    private final long[] rowsOut = new long[STAGES];
+    private final long[] nanos = new long[STAGES];
+    private final long[] rowStartNanos = new long[STAGES];
+    // Time of stages measured inside of the stream
+    private long streamNanos;
+
+    public PipelineMetrics(String input) {
+        this.input = input;
+    }
+
+    private void addRowTime(int stage, long elapsed) {
+        nanos[stage] += elapsed;
+        streamNanos += elapsed;
+    }
+
+    /**
+     * Adds stage which is done out of the stream, e.g. parsing of whole statement before it's streamed
+     */
+    public void add(PipelineStage stage, long rowsIn, long rowsOut, long nanos) {
+        int i = stage.ordinal();
+        used[i] = true;
+        this.rowsIn[i] += rowsIn;
+        this.rowsOut[i] += rowsOut;
+        this.nanos[i] += nanos;
+    }
+
+    public boolean isMeasured(PipelineStage stage) {
+        return used[stage.ordinal()];
+    }
+
+    /**
+     * Adds stage done by the source: rows removed by it are not parsed, so its time is a part of parsing
+     */
+    public void addPushedDown(PipelineStage stage, long removedRows) {
+        long parsedRows = rowsOut[PipelineStage.PARSE.ordinal()];
+        add(stage, parsedRows + removedRows, parsedRows, 0);
+    }
+
+    /**
+     * @return the same rows with time of getting each of them counted as {@link PipelineStage#PARSE}
+     */
+    public <T> Stream<T> measureSource(Stream<T> source) {
+        used[PipelineStage.PARSE.ordinal()] = true;
+        return StreamSupport.stream(new TimedSpliterator<>(source.spliterator()), false)
+                .onClose(source::close);
+    }
+
+    /**
+     * @param operation stage which maps or filters rows one by one
+     */
+    public <T, R> Stream<R> measure(PipelineStage stage, Stream<T> input, Function<Stream<T>, Stream<R>> operation) {
+        int i = stage.ordinal();
+        used[i] = true;
+        Stream<T> counted = input.peek(row -> {
+            rowsIn[i]++;
+            rowStartNanos[i] = System.nanoTime();
+        });
+        return operation.apply(counted).peek(row -> {
+            rowsOut[i]++;
+            addRowTime(i, System.nanoTime() - rowStartNanos[i]);
+        });
+    }
+
+    /**
+     * @param sink final stage consuming the stream
+     */
+    public <T> void measureSink(PipelineStage stage, Stream<T> input, Consumer<Stream<T>> sink) {
+        int i = stage.ordinal();
+        used[i] = true;
+        long streamNanosBefore = streamNanos;
+        long start = System.nanoTime();
+        sink.accept(input.peek(row -> rowsIn[i]++));
+        nanos[i] += System.nanoTime() - start - (streamNanos - streamNanosBefore);
+        rowsOut[i] = rowsIn[i];
+    }
+
+    public PipelineSummary finish(long keyWordHits, long keyWordMisses) {
+        List<StageSummary> stages = new ArrayList<>();
+        for (PipelineStage stage : PipelineStage.values()) {
+            int i = stage.ordinal();
+            if (used[i]) {
+                stages.add(StageSummary.builder()
+                        .stage(stage)
+                        .rowsIn(rowsIn[i])
+                        .rowsOut(rowsOut[i])
+                        .nanos(nanos[i])
+                        .build());
+            }
+        }
+        return PipelineSummary.builder()
+                .input(input)
+                .rows(rowsOut[PipelineStage.PARSE.ordinal()])
+                .nanos(System.nanoTime() - startNanos)
+                .keyWordHits(keyWordHits)
+                .keyWordMisses(keyWordMisses)
+                .stages(stages)
+                .build();
+    }
+
+    /**
+     * Takes row from the source before passing it on, so parsing is timed without stages downstream
+     */
+    private class TimedSpliterator<T> implements Spliterator<T>, Consumer<T> {
+        private final Spliterator<T> source;
+        private T row;
+
+        TimedSpliterator(Spliterator<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void accept(T row) {
+            this.row = row;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            int parse = PipelineStage.PARSE.ordinal();
+            long start = System.nanoTime();
+            boolean advanced = source.tryAdvance(this);
+            addRowTime(parse, System.nanoTime() - start);
+            if (!advanced) {
+                return false;
+            }
+            rowsIn[parse]++;
+            rowsOut[parse]++;
+            T next = row;
+            row = null;
+            action.accept(next);
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & ~Spliterator.SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return source.getComparator();
+        }
+    }
+}
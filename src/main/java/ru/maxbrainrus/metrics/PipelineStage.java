@@ -0,0 +1,14 @@
+package ru.maxbrainrus.metrics;
+
+/**
+ * Stages of report pipeline in the order rows pass them
+ */
+public enum PipelineStage {
+    PARSE,
+    CUT,
+    INCREMENTAL,
+    DEDUPLICATE,
+    FILL,
+    AGGREGATE,
+    WRITE
+}
@@ -0,0 +1,42 @@
+package ru.maxbrainrus.metrics;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of one report pipeline run
+ */
+@Value
+@Builder
+public class PipelineSummary {
+    String input;
+    /**
+     * Count of parsed rows
+     */
+    long rows;
+    long nanos;
+    long keyWordHits;
+    long keyWordMisses;
+    List<StageSummary> stages;
+
+    public double getMillis() {
+        return nanos / 1e6;
+    }
+
+    public double getRecordsPerSecond() {
+        return nanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%s: %d rows in %.1f ms (%.0f rows/s), keywords found in %d, not found in %d",
+                input, rows, getMillis(), getRecordsPerSecond(), keyWordHits, keyWordMisses));
+        for (StageSummary stage : stages) {
+            sb.append(String.format("; %s %d -> %d rows in %.1f ms", stage.getStage(), stage.getRowsIn(), stage.getRowsOut(), stage.getMillis()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.maxbrainrus.metrics;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+@Value
+@Builder
+public class StageSummary {
+    PipelineStage stage;
+    long rowsIn;
+    long rowsOut;
+    long nanos;
+
+    public double getMillis() {
+        return nanos / 1e6;
+    }
+
+    public double getRecordsPerSecond() {
+        return nanos == 0 ? 0 : rowsIn * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
@@ -2,21 +2,39 @@ package ru.maxbrainrus.parser;
 
 import lombok.extern.slf4j.Slf4j;
 import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.config.KeyWordMatcher;
 import ru.maxbrainrus.transaction.MoneyTransaction;
 import ru.maxbrainrus.transaction.OperationType;
+import ru.maxbrainrus.transaction.TransactionBatch;
 
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Fills category, wallet and description of transactions by keywords of their descriptions.
+ * Result of keyword search is cached by description, so repeated descriptions are searched once.
+ * Filler is thread-safe, so one instance with its warm cache may fill transactions of concurrent reports.
+ */
 @Slf4j
 public class ConfigFiller {
-    private final Map<String, ConfigValue> keyWordsToConfigMap;
+    // Description without keyword, the only match without config
+    private static final KeyWordMatch NO_MATCH = new KeyWordMatch(null, null);
+
+    private final KeyWordMatcher keyWordMatcher;
+    private final StringPool stringPool;
+    private final DescriptionCache<KeyWordMatch> lookupCache = new DescriptionCache<>();
 
     public ConfigFiller(Map<String, ConfigValue> keyWordsToConfigMap) {
-        this.keyWordsToConfigMap = keyWordsToConfigMap;
+        this(KeyWordMatcher.compile(keyWordsToConfigMap), new StringPool());
+    }
+
+    public ConfigFiller(KeyWordMatcher keyWordMatcher, StringPool stringPool) {
+        this.keyWordMatcher = keyWordMatcher;
+        this.stringPool = stringPool;
     }
 
     private static MoneyTransaction enrichCategoryOrWallet(MoneyTransaction transaction, String categoryOrWallet) {
@@ -48,36 +66,122 @@ public class ConfigFiller {
         return transaction;
     }
 
-    private MoneyTransaction fillFromConfig(MoneyTransaction transaction, ConfigValue config) {
+    private MoneyTransaction fillFromConfig(MoneyTransaction transaction, KeyWordMatch match) {
         return Optional.of(transaction)
-                .map(tr -> enrichCategoryOrWallet(tr, config.getCategory()))
-                .map(tr -> enrichWithAdditionalDescriptionIfExist(tr, config.getAdditionalDescription()))
+                .map(tr -> enrichCategoryOrWallet(tr, match.config.getCategory()))
+                .map(tr -> enrichWithAdditionalDescriptionIfExist(tr, match.enrichedDescription))
                 .orElseThrow(RuntimeException::new);
     }
 
-    private MoneyTransaction enrichWithAdditionalDescriptionIfExist(MoneyTransaction tr, @Nullable String additionalDescription) {
-        return Optional.ofNullable(additionalDescription)
-                .map(description -> enrichWithAdditionalDescription(tr, description))
+    private static MoneyTransaction enrichWithAdditionalDescriptionIfExist(MoneyTransaction tr, @Nullable String enrichedDescription) {
+        return Optional.ofNullable(enrichedDescription)
+                .map(description -> tr.toBuilder()
+                        .description(description)
+                        .build())
                 .orElse(tr);
     }
 
-    private MoneyTransaction enrichWithAdditionalDescription(MoneyTransaction tr, String additionalDescription) {
-        return tr.toBuilder()
-                .description(String.format("%s (%s)", additionalDescription, tr.getDescription()))
-                .build();
+    /**
+     * Loader of {@link #lookupCache}. Enriched description is canonicalized by the string pool,
+     * which is idempotent, so repeated loading of the same description is harmless.
+     */
+    private KeyWordMatch findMatch(String description) {
+        return keyWordMatcher.findFirst(description)
+                .map(config -> new KeyWordMatch(config, config.getAdditionalDescription() == null ? null
+                        : stringPool.canonicalize(String.format("%s (%s)", config.getAdditionalDescription(), description))))
+                .orElse(NO_MATCH);
+    }
+
+    private MoneyTransaction fillTransaction(MoneyTransaction transaction, KeyWordCounter counter) {
+        KeyWordMatch match = lookupCache.get(transaction.getDescription(), this::findMatch);
+        counter.count(match != NO_MATCH);
+        return match == NO_MATCH ? transaction : fillFromConfig(transaction, match);
+    }
+
+    /**
+     * @return pool of enriched descriptions
+     */
+    public StringPool getStringPool() {
+        return stringPool;
+    }
+
+    /**
+     * @return cache of keyword search results with its hit and miss counters
+     */
+    public DescriptionCache<?> getLookupCache() {
+        return lookupCache;
+    }
+
+    public Stream<MoneyTransaction> fill(Stream<MoneyTransaction> transactions) {
+        return fill(transactions, new KeyWordCounter());
     }
 
-    private MoneyTransaction fillTransaction(MoneyTransaction transaction) {
-        return keyWordsToConfigMap.entrySet().stream()
-                .filter(entry -> transaction.getDescription().toLowerCase().contains(entry.getKey().toLowerCase()))
-                .findFirst()
-                .map(entry -> fillFromConfig(transaction, entry.getValue()))
-                .orElse(transaction);
+    /**
+     * @param counter counts filled transactions with and without keyword
+     */
+    public Stream<MoneyTransaction> fill(Stream<MoneyTransaction> transactions, KeyWordCounter counter) {
+        return transactions.map(transaction -> fillTransaction(transaction, counter));
     }
 
     public List<MoneyTransaction> fill(List<MoneyTransaction> transactionList) {
-        return transactionList.stream()
-                .map(this::fillTransaction)
+        return fill(transactionList.stream())
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Fills the batch in place. Keywords are searched once per distinct description of the batch
+     * and only if the description is not in the lookup cache.
+     */
+    public void fill(TransactionBatch batch) {
+        fill(batch, new KeyWordCounter());
+    }
+
+    /**
+     * Same as {@link #fill(TransactionBatch)}
+     *
+     * @param counter counts filled transactions with and without keyword
+     */
+    public void fill(TransactionBatch batch, KeyWordCounter counter) {
+        KeyWordMatch[] matches = new KeyWordMatch[batch.getDictionary().size()];
+        for (int row = 0; row < batch.size(); row++) {
+            int descriptionCode = batch.getDescriptionCode(row);
+            KeyWordMatch match = matches[descriptionCode];
+            if (match == null) {
+                match = lookupCache.get(batch.getDescription(row), this::findMatch);
+                matches[descriptionCode] = match;
+            }
+            counter.count(match != NO_MATCH);
+            if (match == NO_MATCH) {
+                continue;
+            }
+            fillRow(batch, row, match.config.getCategory());
+            if (match.enrichedDescription != null) {
+                batch.setDescription(row, match.enrichedDescription);
+            }
+        }
+    }
+
+    private static void fillRow(TransactionBatch batch, int row, String categoryOrWallet) {
+        if (batch.getOperationType(row) != OperationType.TRANSFER) {
+            batch.setCategory(row, categoryOrWallet);
+        } else if (batch.getSourceWallet(row) == null) {
+            batch.setSourceWallet(row, categoryOrWallet);
+        } else if (batch.getTargetWallet(row) == null) {
+            batch.setTargetWallet(row, categoryOrWallet);
+        }
+    }
+
+    /**
+     * Config of the first keyword of description and description enriched with its additional description
+     */
+    private static class KeyWordMatch {
+        private final ConfigValue config;
+        @Nullable
+        private final String enrichedDescription;
+
+        KeyWordMatch(ConfigValue config, @Nullable String enrichedDescription) {
+            this.config = config;
+            this.enrichedDescription = enrichedDescription;
+        }
+    }
 }
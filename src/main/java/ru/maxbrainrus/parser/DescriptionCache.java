@@ -0,0 +1,81 @@
+package ru.maxbrainrus.parser;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of values computed from transaction descriptions, so a repeated description costs one hash lookup.
+ * <p>
+ * Like {@link StringPool} the cache is direct-mapped: an entry is kept in the slot chosen by hash of its description
+ * and evicts the previous one, so the size is bounded by the capacity. Slots are read and written without locks,
+ * which is safe because entries are immutable and a lost update only costs a miss. Loader may be called
+ * several times for the same description by concurrent threads or after eviction, so it must be idempotent:
+ * repeating it may only repeat harmless side effects, e.g. canonicalization of the value by a {@link StringPool}.
+ *
+ * @param <V> cached value, not null. Absence of value (e.g. no matching keyword) is cached as a marker value
+ */
+public class DescriptionCache<V> {
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final Entry<V>[] slots;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DescriptionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public DescriptionCache(int capacity) {
+        this.slots = (Entry<V>[]) new Entry<?>[Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return cached value of the description or value computed by the loader
+     */
+    public V get(String description, Function<String, V> loader) {
+        int index = spread(description.hashCode()) & (slots.length - 1);
+        Entry<V> entry = slots[index];
+        if (entry != null && entry.description.equals(description)) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        V value = loader.apply(description);
+        slots[index] = new Entry<>(description, value);
+        return value;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DescriptionCache(hits=%d, misses=%d, hitRate=%.1f%%)", getHits(), getMisses(), getHitRate() * 100);
+    }
+
+    private static class Entry<V> {
+        private final String description;
+        private final V value;
+
+        Entry(String description, V value) {
+            this.description = description;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ru.maxbrainrus.parser;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts filled transactions with and without a keyword in description.
+ * One counter is used per report, so reports filled concurrently by one {@link ConfigFiller} are counted separately.
+ */
+public class KeyWordCounter {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    void count(boolean found) {
+        if (found) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+
+    /**
+     * @return count of filled transactions which description contains a keyword
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return count of filled transactions which description contains no keyword
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
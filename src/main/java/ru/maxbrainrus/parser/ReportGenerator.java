@@ -0,0 +1,242 @@
+package ru.maxbrainrus.parser;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import ru.maxbrainrus.config.KeyWordMatcher;
+import ru.maxbrainrus.dedup.DuplicateFilter;
+import ru.maxbrainrus.dedup.FingerprintIndex;
+import ru.maxbrainrus.incremental.Checkpoint;
+import ru.maxbrainrus.incremental.CheckpointStore;
+import ru.maxbrainrus.incremental.IncrementalFilter;
+import ru.maxbrainrus.metrics.JfrEvents;
+import ru.maxbrainrus.metrics.MetricsWriter;
+import ru.maxbrainrus.metrics.PipelineMetrics;
+import ru.maxbrainrus.metrics.PipelineStage;
+import ru.maxbrainrus.metrics.PipelineSummary;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.BankStatementParser;
+import ru.maxbrainrus.parser.statement.BankStatementParserFactory;
+import ru.maxbrainrus.parser.statement.StatementDateFilter;
+import ru.maxbrainrus.parser.statement.StatementDateOrder;
+import ru.maxbrainrus.report.CsvReportMaker;
+import ru.maxbrainrus.report.SummaryAggregator;
+import ru.maxbrainrus.report.SummaryReportMaker;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Makes reports of statements with the same options.
+ * Compiled keyword matcher, parser and string pool are created once and reused by every report,
+ * so a long living instance (see watch-folder mode of the app) processes each next statement warm.
+ * Instance is not thread-safe, but instances may share one thread-safe {@link ConfigFiller} with its string pool.
+ */
+@Slf4j
+public class ReportGenerator {
+    private static final String STREAM_INPUT = "stream";
+
+    private final ReportOptions options;
+    private final Map<BankFormatType, BankStatementParser> parsers = new EnumMap<>(BankFormatType.class);
+    private final ConfigFiller configFiller;
+    private final StringPool stringPool;
+
+    public ReportGenerator(KeyWordMatcher keyWordMatcher, ReportOptions options) {
+        this(new ConfigFiller(keyWordMatcher, new StringPool()), options);
+    }
+
+    /**
+     * @param configFiller filler shared with other generators, parsers use its string pool
+     */
+    public ReportGenerator(ConfigFiller configFiller, ReportOptions options) {
+        this.options = options;
+        this.configFiller = configFiller;
+        this.stringPool = configFiller.getStringPool();
+    }
+
+    private BankStatementParser getParser(BankFormatType bankFormatType) {
+        return parsers.computeIfAbsent(bankFormatType,
+                type -> BankStatementParserFactory.createBankStatementParser(type, stringPool, options.getReadMode()));
+    }
+
+    /**
+     * @param detector detects format by statement header if it's not set in options
+     */
+    private BankStatementParser getParser(String input, Supplier<BankFormatType> detector) {
+        BankFormatType bankFormatType = options.getBankFormatType();
+        if (bankFormatType == null) {
+            bankFormatType = detector.get();
+            log.info("Statement {} is detected as {}", input, bankFormatType);
+        }
+        return getParser(bankFormatType);
+    }
+
+    /**
+     * Parsing, filling, cutting, summing up and writing of report are done record by record,
+     * so whole statement is never kept in memory.
+     */
+    public void makeReport(String inputDataFileName, String reportFileName) {
+        BankStatementParser parser = getParser(inputDataFileName, () -> BankStatementParserFactory.detectBankFormatType(inputDataFileName));
+        makeReport(inputDataFileName, (metrics, dateFilter) -> parseTransactions(parser, inputDataFileName, metrics, dateFilter),
+                transactions -> CsvReportMaker.createReport(transactions, reportFileName));
+    }
+
+    /**
+     * Same as {@link #makeReport(String, String)}, but statement is read from the input stream
+     * and report is written to the writer as transactions are parsed. The writer is not closed.
+     * Statement is always parsed on one core.
+     */
+    public void makeReport(InputStream inputData, Writer report) {
+        InputStream statement = inputData.markSupported() ? inputData : new BufferedInputStream(inputData);
+        BankStatementParser parser = getParser(STREAM_INPUT, () -> BankStatementParserFactory.detectBankFormatType(statement));
+        makeReport(STREAM_INPUT, (metrics, dateFilter) -> metrics.measureSource(dateFilter == null
+                        ? parser.streamBankStatement(statement, options.getSourceWallet())
+                        : parser.streamBankStatement(statement, options.getSourceWallet(), dateFilter)),
+                transactions -> CsvReportMaker.createReport(transactions, report));
+    }
+
+    @SneakyThrows
+    private void makeReport(String input,
+                            BiFunction<PipelineMetrics, StatementDateFilter, Stream<MoneyTransaction>> parser,
+                            Consumer<Stream<MoneyTransaction>> reportMaker) {
+        PipelineMetrics metrics = new PipelineMetrics(input);
+        KeyWordCounter keyWordCounter = new KeyWordCounter();
+        IncrementalFilter incrementalFilter = createIncrementalFilter();
+        StatementDateFilter dateFilter = createDateFilter();
+        SummaryAggregator summaryAggregator = options.getSummaryFile() == null ? null : new SummaryAggregator();
+        try (DuplicateFilter duplicateFilter = openDuplicateFilter();
+             Stream<MoneyTransaction> parsedTransactions = parser.apply(metrics, dateFilter)) {
+            Stream<MoneyTransaction> transactions = parsedTransactions;
+            if (incrementalFilter != null) {
+                transactions = metrics.measure(PipelineStage.INCREMENTAL, transactions,
+                        stream -> incrementalFilter.filter(stream, options.getDateOrder()));
+            }
+            if (duplicateFilter != null) {
+                transactions = metrics.measure(PipelineStage.DEDUPLICATE, transactions, duplicateFilter::filter);
+            }
+            transactions = metrics.measure(PipelineStage.FILL, transactions, stream -> configFiller.fill(stream, keyWordCounter));
+            if (summaryAggregator != null) {
+                transactions = metrics.measure(PipelineStage.AGGREGATE, transactions, summaryAggregator::aggregate);
+            }
+            if (log.isDebugEnabled()) {
+                transactions = transactions.peek(ReportGenerator::logTransaction);
+            }
+            metrics.measureSink(PipelineStage.WRITE, transactions, reportMaker);
+            if (duplicateFilter != null) {
+                log.info("Duplicates: {} removed, {} unique transactions added to index", duplicateFilter.getDuplicates(), duplicateFilter.getUnique());
+                duplicateFilter.commit();
+            }
+        }
+        if (dateFilter != null) {
+            logDateFilter(dateFilter, metrics);
+        }
+        if (summaryAggregator != null) {
+            log.info("Summary: {} rows", summaryAggregator.size());
+            SummaryReportMaker.createReport(summaryAggregator, options.getSummaryFile().toString());
+        }
+        if (incrementalFilter != null) {
+            saveCheckpoint(incrementalFilter);
+        }
+        log.info("Duplicate strings: {}", stringPool);
+        log.info("Keyword lookup cache: {}", configFiller.getLookupCache());
+        PipelineSummary summary = metrics.finish(keyWordCounter.getHits(), keyWordCounter.getMisses());
+        log.info("Pipeline metrics of {}", summary);
+        JfrEvents.emit(summary);
+        if (options.getMetricsFile() != null) {
+            MetricsWriter.writeJson(summary, options.getMetricsFile());
+        }
+    }
+
+    /**
+     * Cut date is applied by parser, so old records are skipped before parsing
+     */
+    @Nullable
+    private StatementDateFilter createDateFilter() {
+        LocalDate cutDate = options.getCutDate();
+        if (cutDate == null) {
+            return null;
+        }
+        log.info("Transactions with date less or equals cut date {} are removed", cutDate);
+        return new StatementDateFilter(cutDate, options.getDateOrder());
+    }
+
+    private void logDateFilter(StatementDateFilter dateFilter, PipelineMetrics metrics) {
+        // Parsed in parallel statement is filtered after parsing as a separate stage
+        if (!metrics.isMeasured(PipelineStage.CUT)) {
+            metrics.addPushedDown(PipelineStage.CUT, dateFilter.getSkipped());
+        }
+        log.info("Cut date: {} old transactions skipped", dateFilter.getSkipped());
+        StatementDateOrder observedOrder = dateFilter.getObservedOrder();
+        if (options.getDateOrder() == StatementDateOrder.UNKNOWN && observedOrder != StatementDateOrder.UNKNOWN) {
+            log.info("Statement dates are in {} order, reading of such statements stops at the cut date if the order is declared",
+                    observedOrder);
+        }
+    }
+
+    @Nullable
+    private DuplicateFilter openDuplicateFilter() throws IOException {
+        Path deduplicationIndex = options.getDeduplicationIndex();
+        if (deduplicationIndex == null) {
+            return null;
+        }
+        FingerprintIndex index = FingerprintIndex.open(deduplicationIndex);
+        log.info("Deduplication index {}: {} fingerprints, bloom filter {} bytes", deduplicationIndex, index.size(), index.getBloomFilterSizeInBytes());
+        return new DuplicateFilter(index);
+    }
+
+    @Nullable
+    private IncrementalFilter createIncrementalFilter() {
+        Path checkpointDirectory = options.getCheckpointDirectory();
+        if (checkpointDirectory == null) {
+            return null;
+        }
+        Checkpoint checkpoint = CheckpointStore.load(checkpointDirectory, options.getSourceWallet()).orElse(null);
+        if (checkpoint != null) {
+            log.info("Transactions before {} and {} transactions of that day are exported before and will be skipped",
+                    checkpoint.getLastDate(), checkpoint.getLastDateFingerprints().size());
+        }
+        return new IncrementalFilter(options.getSourceWallet(), checkpoint);
+    }
+
+    private void saveCheckpoint(IncrementalFilter incrementalFilter) {
+        log.info("Incremental mode: {} new transactions, {} exported before", incrementalFilter.getPassed(), incrementalFilter.getSkipped());
+        incrementalFilter.getCheckpoint()
+                .ifPresent(checkpoint -> CheckpointStore.save(options.getCheckpointDirectory(), checkpoint));
+    }
+
+    /**
+     * @param dateFilter cut date filter or null if there is no cut date
+     */
+    private Stream<MoneyTransaction> parseTransactions(BankStatementParser bankStatementParser, String inputDataFileName,
+                                                       PipelineMetrics metrics, @Nullable StatementDateFilter dateFilter) {
+        if (options.isParallelParsing()) {
+            long start = System.nanoTime();
+            List<MoneyTransaction> transactions = bankStatementParser.parseBankStatementInParallel(inputDataFileName, options.getSourceWallet());
+            metrics.add(PipelineStage.PARSE, transactions.size(), transactions.size(), System.nanoTime() - start);
+            if (dateFilter != null) {
+                return metrics.measure(PipelineStage.CUT, transactions.stream(), dateFilter::apply);
+            }
+            return transactions.stream();
+        }
+        if (dateFilter != null) {
+            return metrics.measureSource(bankStatementParser.streamBankStatement(inputDataFileName, options.getSourceWallet(), dateFilter));
+        }
+        return metrics.measureSource(bankStatementParser.streamBankStatement(inputDataFileName, options.getSourceWallet()));
+    }
+
+    private static void logTransaction(MoneyTransaction transaction) {
+        log.debug("Parsed transaction" + ": {}", transaction);
+    }
+}
@@ -1,53 +1,51 @@
 package ru.maxbrainrus.parser;
 
-import lombok.extern.slf4j.Slf4j;
 import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.config.KeyWordMatcher;
 import ru.maxbrainrus.parser.statement.BankFormatType;
-import ru.maxbrainrus.parser.statement.BankStatementParser;
-import ru.maxbrainrus.parser.statement.BankStatementParserFactory;
-import ru.maxbrainrus.report.CsvReportMaker;
-import ru.maxbrainrus.transaction.MoneyTransaction;
 
 import javax.annotation.Nullable;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
-@Slf4j
 public class ReportGeneratorFacade {
 
+    /**
+     * Parsing, filling, cutting and writing of report are done record by record,
+     * so whole statement is never kept in memory.
+     */
     public static void makeReport(String inputDataFileName,
                                   String reportFileName,
                                   Map<String, ConfigValue> keyWordsToCategoryMap,
                                   @Nullable LocalDate cutDate,
                                   String sourceWallet,
                                   BankFormatType bankFormatType) {
-        BankStatementParser bankStatementParser = BankStatementParserFactory.createBankStatementParser(bankFormatType);
-        List<MoneyTransaction> transactions = bankStatementParser.parseBankStatement(inputDataFileName, sourceWallet);
-        transactions = fillCategoriesAndWallets(keyWordsToCategoryMap, transactions);
-        logTransactions(transactions);
-        if (cutDate != null) {
-            transactions = removeOldTransactions(transactions, cutDate);
-        }
-        CsvReportMaker.createReport(transactions, reportFileName);
+        makeReport(inputDataFileName, reportFileName, keyWordsToCategoryMap, cutDate, sourceWallet, bankFormatType, false);
     }
 
-    private static List<MoneyTransaction> removeOldTransactions(List<MoneyTransaction> transactions, @Nullable LocalDate cutDate) {
-        transactions = transactions.stream()
-                .filter(moneyTransaction -> moneyTransaction.getDate().isAfter(cutDate))
-                .collect(Collectors.toList());
-        log.info("Transactions after cutting using cut date {}: {}", cutDate, transactions);
-        return transactions;
-    }
-
-    private static void logTransactions(List<MoneyTransaction> transactions) {
-        transactions.forEach(moneyTransaction -> log.info("Parsed transaction" + ": {}", moneyTransaction));
+    /**
+     * @param parallelParsing parse statement on several cores. Parsed transactions are kept in memory in this case.
+     */
+    public static void makeReport(String inputDataFileName,
+                                  String reportFileName,
+                                  Map<String, ConfigValue> keyWordsToCategoryMap,
+                                  @Nullable LocalDate cutDate,
+                                  String sourceWallet,
+                                  BankFormatType bankFormatType,
+                                  boolean parallelParsing) {
+        makeReport(inputDataFileName, reportFileName, keyWordsToCategoryMap, ReportOptions.builder()
+                .cutDate(cutDate)
+                .sourceWallet(sourceWallet)
+                .bankFormatType(bankFormatType)
+                .parallelParsing(parallelParsing)
+                .build());
     }
 
-    private static List<MoneyTransaction> fillCategoriesAndWallets(Map<String, ConfigValue> keyWordsToCategoryMap, List<MoneyTransaction> transactions) {
-        ConfigFiller categoryWalletFiller = new ConfigFiller(keyWordsToCategoryMap);
-        return categoryWalletFiller.fill(transactions);
+    public static void makeReport(String inputDataFileName,
+                                  String reportFileName,
+                                  Map<String, ConfigValue> keyWordsToCategoryMap,
+                                  ReportOptions options) {
+        new ReportGenerator(KeyWordMatcher.compile(keyWordsToCategoryMap), options)
+                .makeReport(inputDataFileName, reportFileName);
     }
-
 }
@@ -0,0 +1,61 @@
+package ru.maxbrainrus.parser;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.CsvStatementParser;
+import ru.maxbrainrus.parser.statement.StatementDateOrder;
+import ru.maxbrainrus.parser.statement.StatementReadMode;
+
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Settings of report generation, see {@link ReportGeneratorFacade}
+ */
+@Value
+@Builder
+public class ReportOptions {
+    /**
+     * Transactions with date less or equals cut date are removed from report
+     */
+    @Nullable
+    LocalDate cutDate;
+    String sourceWallet;
+    /**
+     * Null means that format is detected by header of each statement
+     */
+    @Nullable
+    BankFormatType bankFormatType;
+    /**
+     * Parse statement on several cores. Parsed transactions are kept in memory in this case.
+     */
+    boolean parallelParsing;
+    @Builder.Default
+    StatementReadMode readMode = CsvStatementParser.DEFAULT_READ_MODE;
+    /**
+     * Directory with checkpoints of wallets for incremental mode: only transactions not exported
+     * by previous runs get into report. Null turns incremental mode off
+     */
+    @Nullable
+    Path checkpointDirectory;
+    @Builder.Default
+    StatementDateOrder dateOrder = StatementDateOrder.UNKNOWN;
+    /**
+     * File with fingerprints of all transactions exported with it. Transactions found in it are removed from report
+     * as duplicates. Null turns deduplication off
+     */
+    @Nullable
+    Path deduplicationIndex;
+    /**
+     * Json file to write row counts and time of pipeline stages to. Null turns it off
+     */
+    @Nullable
+    Path metricsFile;
+    /**
+     * Csv file to write totals by month, operation type, category and wallet to. Null turns it off
+     */
+    @Nullable
+    Path summaryFile;
+}
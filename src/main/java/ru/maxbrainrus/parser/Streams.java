@@ -0,0 +1,41 @@
+package ru.maxbrainrus.parser;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class Streams {
+    private Streams() {
+    }
+
+    /**
+     * Stream.takeWhile of Java 9: elements up to the first one not matching predicate.
+     * The rest of source stream is not read. Closing of result closes the source.
+     */
+    public static <T> Stream<T> takeWhile(Stream<T> stream, Predicate<? super T> predicate) {
+        Spliterator<T> source = stream.spliterator();
+        Spliterator<T> result = new Spliterators.AbstractSpliterator<T>(source.estimateSize(),
+                source.characteristics() & (Spliterator.ORDERED | Spliterator.NONNULL)) {
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (finished) {
+                    return false;
+                }
+                boolean advanced = source.tryAdvance(element -> {
+                    if (predicate.test(element)) {
+                        action.accept(element);
+                    } else {
+                        finished = true;
+                    }
+                });
+                return advanced && !finished;
+            }
+        };
+        return StreamSupport.stream(result, stream.isParallel()).onClose(stream::close);
+    }
+}
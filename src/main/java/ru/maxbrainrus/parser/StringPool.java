@@ -0,0 +1,116 @@
+package ru.maxbrainrus.parser;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of canonical strings, so equal descriptions, categories and wallets of many transactions
+ * share one instance.
+ * <p>
+ * The pool is direct-mapped: a string is kept in the slot chosen by its hash and evicts the previous one,
+ * so a stream of unique values can't grow it. Slots are read and written without locks, which is safe
+ * because strings are immutable and a lost update only costs a miss.
+ * <p>
+ * Lookup of the pooled instance itself (e.g. wallet name passed for every record) is not counted,
+ * so hits and saved bytes show only duplicates really replaced.
+ */
+public class StringPool {
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    // Header of String object and header of its value array
+    private static final int STRING_OVERHEAD_BYTES = 40;
+    // Value of String is char array in Java 8
+    private static final int BYTES_PER_CHAR = 2;
+
+    private final String[] slots;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public StringPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StringPool(int capacity) {
+        this.slots = new String[Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long estimateSize(int length) {
+        return STRING_OVERHEAD_BYTES + (long) length * BYTES_PER_CHAR;
+    }
+
+    @Nullable
+    public String canonicalize(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        int index = spread(value.hashCode()) & (slots.length - 1);
+        String pooled = slots[index];
+        if (pooled == value) {
+            return pooled;
+        }
+        if (pooled != null && pooled.equals(value)) {
+            registerHit(value.length());
+            return pooled;
+        }
+        misses.increment();
+        slots[index] = value;
+        return value;
+    }
+
+    /**
+     * Same as {@code canonicalize(source.substring(start, end))}, but the substring is created only if it is not in the pool.
+     */
+    public String canonicalize(String source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int index = spread(hash) & (slots.length - 1);
+        String pooled = slots[index];
+        if (pooled != null && pooled.length() == end - start && source.regionMatches(start, pooled, 0, end - start)) {
+            registerHit(end - start);
+            return pooled;
+        }
+        misses.increment();
+        String value = source.substring(start, end);
+        slots[index] = value;
+        return value;
+    }
+
+    private void registerHit(int length) {
+        hits.increment();
+        savedBytes.add(estimateSize(length));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return estimated bytes of duplicate strings replaced by pooled instances
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StringPool(hits=%d, misses=%d, hitRate=%.1f%%, savedBytes=%d)",
+                getHits(), getMisses(), getHitRate() * 100, getSavedBytes());
+    }
+}
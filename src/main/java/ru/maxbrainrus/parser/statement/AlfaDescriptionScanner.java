@@ -0,0 +1,184 @@
+package ru.maxbrainrus.parser.statement;
+
+import ru.maxbrainrus.parser.StringPool;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+
+/**
+ * Extracts everything Alfa parser needs from raw operation description in one forward pass:
+ * <ul>
+ * <li>card number marker (digits, '+' mask, last 4 digits: "123456++++++1234")</li>
+ * <li>merchant text of card operations: text before the first '&gt;',
+ * its last part after '/' and then after '\', cut at the first double space and trimmed</li>
+ * <li>the earliest embedded date "dd.MM.yy"</li>
+ * <li>transfer markers</li>
+ * </ul>
+ * Only the resulting merchant string is allocated.
+ */
+class AlfaDescriptionScanner {
+    private static final String CARD2CARD = "CARD2CARD";
+    private static final String INTERNAL_TRANSFER = "Внутрибанковский перевод между счетами";
+    private static final int CARD_NUMBER_MIN_DIGITS = 4;
+
+    private final String description;
+    private final StatementDateParser dateParser;
+
+    private boolean cardNumber;
+    private boolean transfer;
+    private LocalDate earliestDate;
+
+    // Merchant text is looked for before the first '>' only
+    private boolean merchantRegion = true;
+    private int slashSegmentStart;
+    private int backslashSegmentStart;
+    private int doubleSpace = -1;
+    // The last non-empty '\'-segment of current '/'-segment (cut at double space)
+    private int backslashSegmentResultStart = -1;
+    private int backslashSegmentResultEnd;
+    // The result for the last non-empty '/'-segment
+    private int merchantStart = -1;
+    private int merchantEnd;
+
+    AlfaDescriptionScanner(String description, StatementDateParser dateParser) {
+        this.description = description;
+        this.dateParser = dateParser;
+        scan();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void scan() {
+        int length = description.length();
+        int digits = 0;
+        int digitsBeforePlus = 0;
+        boolean afterCardMask = false;
+        char previous = 0;
+        int dateSearchFrom = 0;
+        for (int i = 0; i < length; i++) {
+            char c = description.charAt(i);
+            if (merchantRegion) {
+                trackMerchant(c, i);
+            }
+
+            if (isDigit(c)) {
+                if (previous == '+') {
+                    afterCardMask = digitsBeforePlus >= CARD_NUMBER_MIN_DIGITS;
+                }
+                digits++;
+                cardNumber |= afterCardMask && digits >= CARD_NUMBER_MIN_DIGITS;
+            } else if (c == '+') {
+                if (isDigit(previous)) {
+                    digitsBeforePlus = digits;
+                } else if (previous != '+') {
+                    digitsBeforePlus = 0;
+                }
+                digits = 0;
+                afterCardMask = false;
+            } else {
+                digits = 0;
+                digitsBeforePlus = 0;
+                afterCardMask = false;
+            }
+            previous = c;
+
+            if (i >= dateSearchFrom && StatementDateParser.isShortDateAt(description, i)) {
+                LocalDate date = dateParser.parseShortDate(description, i);
+                if (earliestDate == null || date.isBefore(earliestDate)) {
+                    earliestDate = date;
+                }
+                dateSearchFrom = i + StatementDateParser.SHORT_DATE_LENGTH;
+            }
+
+            if (!transfer && (c == 'C' && description.startsWith(CARD2CARD, i)
+                    || c == 'В' && description.startsWith(INTERNAL_TRANSFER, i))) {
+                transfer = true;
+            }
+        }
+        if (merchantRegion) {
+            closeSlashSegment(length);
+        }
+    }
+
+    private void trackMerchant(char c, int i) {
+        if (c == '>') {
+            closeSlashSegment(i);
+            merchantRegion = false;
+        } else if (c == '/') {
+            closeSlashSegment(i);
+            slashSegmentStart = i + 1;
+            backslashSegmentStart = i + 1;
+            backslashSegmentResultStart = -1;
+            doubleSpace = -1;
+        } else if (c == '\\') {
+            closeBackslashSegment(i);
+            backslashSegmentStart = i + 1;
+            doubleSpace = -1;
+        } else if (c == ' ' && doubleSpace < 0 && i > backslashSegmentStart && description.charAt(i - 1) == ' ') {
+            doubleSpace = i - 1;
+        }
+    }
+
+    private void closeBackslashSegment(int end) {
+        if (end > backslashSegmentStart) {
+            backslashSegmentResultStart = backslashSegmentStart;
+            backslashSegmentResultEnd = doubleSpace >= 0 ? doubleSpace : end;
+        }
+    }
+
+    private void closeSlashSegment(int end) {
+        closeBackslashSegment(end);
+        if (end > slashSegmentStart) {
+            if (backslashSegmentResultStart >= 0) {
+                merchantStart = backslashSegmentResultStart;
+                merchantEnd = backslashSegmentResultEnd;
+            } else {
+                merchantStart = slashSegmentStart;
+                merchantEnd = slashSegmentStart;
+            }
+        }
+    }
+
+    boolean hasCardNumber() {
+        return cardNumber;
+    }
+
+    boolean isTransfer() {
+        return transfer;
+    }
+
+    @Nullable
+    LocalDate getEarliestDate() {
+        return earliestDate;
+    }
+
+    /**
+     * @return merchant text for card operations and the whole description for others
+     */
+    String getUsefulDescription() {
+        return getUsefulDescription(null);
+    }
+
+    /**
+     * Same as {@link #getUsefulDescription()}, but returns pooled instance without creating substring if it's in the pool
+     */
+    String getUsefulDescription(@Nullable StringPool stringPool) {
+        if (!cardNumber) {
+            return stringPool == null ? description : stringPool.canonicalize(description);
+        }
+        if (merchantStart < 0) {
+            return "";
+        }
+        int start = merchantStart;
+        int end = merchantEnd;
+        while (start < end && description.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && description.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return stringPool == null ? description.substring(start, end) : stringPool.canonicalize(description, start, end);
+    }
+}
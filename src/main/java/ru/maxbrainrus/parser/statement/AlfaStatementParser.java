@@ -1,40 +1,32 @@
 package ru.maxbrainrus.parser.statement;
 
-import org.apache.commons.csv.CSVRecord;
+import ru.maxbrainrus.parser.StringPool;
 import ru.maxbrainrus.transaction.AmountWithCcy;
 import ru.maxbrainrus.transaction.Amounts;
 import ru.maxbrainrus.transaction.MoneyTransaction;
 import ru.maxbrainrus.transaction.OperationType;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 public class AlfaStatementParser extends CsvStatementParser implements BankStatementParser {
 
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yy");
-    private static final Pattern DATE_REGEX_PATTERN = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{2}");
-    private static final Pattern CARD_NUMBER_PATTERN = Pattern.compile("\\d{4,}\\++\\d{4}");
+    private final StatementDateParser dateParser = new StatementDateParser();
 
-    private static String splitAndGetLast(String input, String regex) {
-        String[] strings = input.split(regex);
-        return strings[strings.length - 1];
+    public AlfaStatementParser() {
+        this(new StringPool());
     }
 
-    private static String splitAndGetFirst(String input, String regex) {
-        return input.split(regex)[0];
+    public AlfaStatementParser(StringPool stringPool) {
+        this(stringPool, DEFAULT_READ_MODE);
     }
 
-    private static void setWalletValue(MoneyTransaction.MoneyTransactionBuilder builder, String sourceWallet, BigDecimal amount, OperationType operationType) {
+    public AlfaStatementParser(StringPool stringPool, StatementReadMode readMode) {
+        super(stringPool, readMode);
+    }
+
+    private static void setWalletValue(MoneyTransaction.MoneyTransactionBuilder builder, String sourceWallet, long amount, OperationType operationType) {
         if (operationType == OperationType.TRANSFER) {
-            if (amount.signum() > 0) {
+            if (amount > 0) {
                 builder.targetWallet(sourceWallet);
             } else {
                 builder.sourceWallet(sourceWallet);
@@ -44,99 +36,98 @@ public class AlfaStatementParser extends CsvStatementParser implements BankState
         }
     }
 
-    private static OperationType getOperationType(BigDecimal amount, String transactionText) {
-        if (transactionText.contains("CARD2CARD") ||
-                transactionText.contains("Внутрибанковский перевод между счетами")) {
+    private static OperationType getOperationType(long amount, AlfaDescriptionScanner description) {
+        if (description.isTransfer()) {
             return OperationType.TRANSFER;
-        } else if (amount.signum() > 0) {
+        } else if (amount > 0) {
             return OperationType.INCOME;
         } else {
             return OperationType.EXPENDITURE;
         }
     }
 
-    private static LocalDate convertToDate(String dateString) {
-        return DATE_TIME_FORMATTER.parse(dateString, LocalDate::from);
+    /**
+     * @return expense column if there is expense in it or income column if there is income
+     */
+    private static int findAmountColumn(StatementRecord record, int expenseColumn, int incomeColumn) {
+        if (getAmount(record, expenseColumn) != 0) {
+            return expenseColumn;
+        }
+        if (getAmount(record, incomeColumn) != 0) {
+            return incomeColumn;
+        }
+        throw new IllegalArgumentException("Can't find correct amount");
+    }
+
+    private static long getAmount(StatementRecord record, int column) {
+        if (column != StatementHeader.NOT_FOUND) {
+            return AmountParser.parseMinorUnits(record.getChars(column));
+        }
+        return 0;
     }
 
     @Override
-    protected MoneyTransaction readTransaction(CSVRecord record, String sourceWallet) {
-        BigDecimal amount = readAmount(record);
-        String rawDescription = getRawDescription(record);
-        OperationType operationType = getOperationType(amount, rawDescription);
+    protected RecordReader createRecordReader(StatementHeader header) {
+        int dateColumn = header.getRequiredIndex("Дата операции");
+        int descriptionColumn = header.getRequiredIndex("Описание операции");
+        int expenseColumn = header.getIndex("Расход");
+        int incomeColumn = header.getIndex("Приход");
+        return (record, sourceWallet) -> readTransaction(record, sourceWallet, dateColumn, descriptionColumn, expenseColumn, incomeColumn);
+    }
+
+    /**
+     * Finds dates in description without creating String of it and without the rest of description scanning
+     */
+    @Override
+    protected DateReader createDateReader(StatementHeader header) {
+        int dateColumn = header.getRequiredIndex("Дата операции");
+        int descriptionColumn = header.getRequiredIndex("Описание операции");
+        return record -> {
+            LocalDate dateInDescription = dateParser.findEarliestShortDate(record.getChars(descriptionColumn));
+            if (dateInDescription != null) {
+                return dateInDescription;
+            }
+            return dateParser.parseShortDate(record.getChars(dateColumn));
+        };
+    }
+
+    private MoneyTransaction readTransaction(StatementRecord record, String sourceWallet,
+                                             int dateColumn, int descriptionColumn, int expenseColumn, int incomeColumn) {
+        int amountColumn = findAmountColumn(record, expenseColumn, incomeColumn);
+        CharSequence amountValue = record.getChars(amountColumn);
+        long amount = amountColumn == expenseColumn
+                ? -AmountParser.parseMinorUnits(amountValue)
+                : AmountParser.parseMinorUnits(amountValue);
+        int scale = AmountParser.parseScale(amountValue);
+        AlfaDescriptionScanner description = new AlfaDescriptionScanner(record.get(descriptionColumn), dateParser);
+        OperationType operationType = getOperationType(amount, description);
 
         MoneyTransaction.MoneyTransactionBuilder moneyTransactionBuilder = MoneyTransaction.builder()
-                .date(getOperationDate(rawDescription, record))
-                .amounts(convertToAmounts(amount.abs()))
-                .description(getUsefulDescription(rawDescription))
+                .date(getOperationDate(description, record, dateColumn))
+                .amounts(convertToAmounts(Math.abs(amount), scale))
+                .description(description.getUsefulDescription(stringPool))
                 .operationType(operationType);
 
-        setWalletValue(moneyTransactionBuilder, sourceWallet, amount, operationType);
+        setWalletValue(moneyTransactionBuilder, stringPool.canonicalize(sourceWallet), amount, operationType);
 
         return moneyTransactionBuilder.build();
     }
 
-    private String getUsefulDescription(String rawDescription) {
-        if (CARD_NUMBER_PATTERN.matcher(rawDescription).find()) {
-            return Optional.of(rawDescription)
-                    .map(s -> splitAndGetFirst(s, ">"))
-                    .map(s -> splitAndGetLast(s, "/"))
-                    .map(s -> splitAndGetLast(s, "\\\\"))
-                    .map(s -> splitAndGetFirst(s, "  "))
-                    .map(String::trim)
-                    .get();
-        }
-        return rawDescription;
-    }
-
-    private String getRawDescription(CSVRecord record) {
-        return record.get("Описание операции");
-    }
-
-    private Amounts convertToAmounts(BigDecimal amount) {
+    private Amounts convertToAmounts(long amount, int scale) {
         return Amounts.builder()
                 .sourceAmount(
                         AmountWithCcy.builder()
-                                .amount(amount)
+                                .minorUnits(amount)
+                                .scale(scale)
                                 .build())
                 .build();
     }
 
-    private BigDecimal readAmount(CSVRecord record) {
-        return Stream.of(
-                getAmount(record, "Расход", true),
-                getAmount(record, "Приход", false)
-        )
-                .filter(Objects::nonNull)
-                .filter(bigDecimal -> !BigDecimal.ZERO.equals(bigDecimal))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Can't find correct amount"));
-    }
-
-    private BigDecimal getAmount(CSVRecord record, String fieldName, boolean invertSign) {
-        if (record.isMapped(fieldName)) {
-            String amountStringValue = record.get(fieldName).replaceAll(",", ".");
-            BigDecimal amountValue = new BigDecimal(amountStringValue);
-            return invertSign ? amountValue.negate() : amountValue;
-        }
-        return null;
-    }
-
-    private LocalDate getOperationDate(String rawDescription, CSVRecord record) {
-        return getOperationDateFromDescription(rawDescription)
-                .orElseGet(() -> convertToDate(record.get("Дата операции")));
-    }
-
-    private Optional<LocalDate> getOperationDateFromDescription(String rawDescription) {
-        Matcher matcher = DATE_REGEX_PATTERN.matcher(rawDescription);
-        List<String> datesInDescription = new ArrayList<>();
-        while (matcher.find()) {
-            String dateInDescription = matcher.group();
-            datesInDescription.add(dateInDescription);
+    private LocalDate getOperationDate(AlfaDescriptionScanner description, StatementRecord record, int dateColumn) {
+        LocalDate dateInDescription = description.getEarliestDate();
+        if (dateInDescription != null) {
+            return dateInDescription;
         }
-        return datesInDescription.stream()
-                .map(AlfaStatementParser::convertToDate)
-                .sorted()
-                .findFirst();
+        return dateParser.parseShortDate(record.getChars(dateColumn));
     }
 }
@@ -0,0 +1,88 @@
+package ru.maxbrainrus.parser.statement;
+
+import ru.maxbrainrus.transaction.AmountWithCcy;
+
+/**
+ * Parses amounts like "-1 234.56", "1234,5" or "100" straight to minor units without allocations.
+ * Spaces (including non-breaking ones) are treated as group separators, both '.' and ',' as decimal separator.
+ */
+public class AmountParser {
+    private static final int MAX_INTEGER_DIGITS = 16;
+    private static final int MAX_FRACTION_DIGITS = 16;
+
+    private AmountParser() {
+    }
+
+    /**
+     * @throws NumberFormatException if value is not an amount or has nonzero digits after kopecks
+     */
+    public static long parseMinorUnits(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && isGroupSeparator(value.charAt(i))) {
+            i++;
+        }
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        long result = 0;
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (!fraction) {
+                    if (++integerDigits > MAX_INTEGER_DIGITS) {
+                        throw numberFormatException(value);
+                    }
+                    result = result * 10 + digit;
+                } else if (fractionDigits < AmountWithCcy.MINOR_UNITS_SCALE) {
+                    result = result * 10 + digit;
+                    fractionDigits++;
+                } else if (digit != 0 || ++fractionDigits > MAX_FRACTION_DIGITS) {
+                    throw numberFormatException(value);
+                }
+            } else if ((c == '.' || c == ',') && !fraction) {
+                fraction = true;
+            } else if (!isGroupSeparator(c)) {
+                throw numberFormatException(value);
+            }
+        }
+        if (integerDigits == 0 && fractionDigits == 0) {
+            throw numberFormatException(value);
+        }
+        for (; fractionDigits < AmountWithCcy.MINOR_UNITS_SCALE; fractionDigits++) {
+            result *= 10;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * @return count of digits after decimal separator of amount accepted by {@link #parseMinorUnits(CharSequence)}
+     */
+    public static int parseScale(CharSequence value) {
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' || c == ',') {
+                fraction = true;
+            } else if (fraction && c >= '0' && c <= '9') {
+                scale++;
+            }
+        }
+        return scale;
+    }
+
+    private static boolean isGroupSeparator(char c) {
+        return c == ' ' || c == '\u00A0';
+    }
+
+    private static NumberFormatException numberFormatException(CharSequence value) {
+        return new NumberFormatException(String.format("Can't parse amount: '%s'", value));
+    }
+}
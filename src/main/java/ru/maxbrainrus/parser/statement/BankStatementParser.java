@@ -1,9 +1,59 @@
 package ru.maxbrainrus.parser.statement;
 
 import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TransactionBatch;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface BankStatementParser {
-    List<MoneyTransaction> parseBankStatement(String inputDataFileName, String sourceWallet);
+    /**
+     * Reads transactions lazily record by record.
+     * Returned stream holds the open statement file, so it must be closed.
+     */
+    Stream<MoneyTransaction> streamBankStatement(String inputDataFileName, String sourceWallet);
+
+    /**
+     * Reads transactions lazily record by record. Closing of returned stream closes the input stream.
+     */
+    Stream<MoneyTransaction> streamBankStatement(InputStream inputData, String sourceWallet);
+
+    /**
+     * Same as {@link #streamBankStatement(String, String)}, but only transactions accepted by date filter are returned.
+     * Parser may skip records before parsing them and stop reading at the cut boundary of ordered statement.
+     */
+    default Stream<MoneyTransaction> streamBankStatement(String inputDataFileName, String sourceWallet, StatementDateFilter dateFilter) {
+        return dateFilter.apply(streamBankStatement(inputDataFileName, sourceWallet));
+    }
+
+    /**
+     * Same as {@link #streamBankStatement(InputStream, String)}, but only transactions accepted by date filter are returned.
+     */
+    default Stream<MoneyTransaction> streamBankStatement(InputStream inputData, String sourceWallet, StatementDateFilter dateFilter) {
+        return dateFilter.apply(streamBankStatement(inputData, sourceWallet));
+    }
+
+    default List<MoneyTransaction> parseBankStatement(String inputDataFileName, String sourceWallet) {
+        try (Stream<MoneyTransaction> transactions = streamBankStatement(inputDataFileName, sourceWallet)) {
+            return transactions.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Parses the whole statement into column oriented batch, which takes much less memory than list of transactions.
+     */
+    default TransactionBatch parseBankStatementToBatch(String inputDataFileName, String sourceWallet) {
+        try (Stream<MoneyTransaction> transactions = streamBankStatement(inputDataFileName, sourceWallet)) {
+            return TransactionBatch.of(transactions);
+        }
+    }
+
+    /**
+     * Parses the whole statement using several cores. Result is in the same order as in the statement.
+     */
+    default List<MoneyTransaction> parseBankStatementInParallel(String inputDataFileName, String sourceWallet) {
+        return parseBankStatement(inputDataFileName, sourceWallet);
+    }
 }
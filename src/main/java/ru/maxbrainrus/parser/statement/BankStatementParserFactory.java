@@ -1,12 +1,46 @@
 package ru.maxbrainrus.parser.statement;
 
+import lombok.SneakyThrows;
+import ru.maxbrainrus.parser.StringPool;
+
+import java.io.InputStream;
+
 public class BankStatementParserFactory {
     public static BankStatementParser createBankStatementParser(BankFormatType bankFormatType) {
+        return createBankStatementParser(bankFormatType, new StringPool());
+    }
+
+    public static BankStatementParser createBankStatementParser(BankFormatType bankFormatType, StringPool stringPool) {
+        return createBankStatementParser(bankFormatType, stringPool, CsvStatementParser.DEFAULT_READ_MODE);
+    }
+
+    /**
+     * Detects format by header of statement file reading only its first bytes. Compressed files are supported,
+     * format of zip bundle is detected by its first statement.
+     *
+     * @throws IllegalArgumentException if header doesn't match any format
+     */
+    @SneakyThrows
+    public static BankFormatType detectBankFormatType(String inputDataFileName) {
+        return StatementFormatDetector.detect(inputDataFileName);
+    }
+
+    /**
+     * Same as {@link #detectBankFormatType(String)}
+     *
+     * @param inputData stream supporting mark, it's reset to the start of statement after detection
+     */
+    @SneakyThrows
+    public static BankFormatType detectBankFormatType(InputStream inputData) {
+        return StatementFormatDetector.detect(inputData);
+    }
+
+    public static BankStatementParser createBankStatementParser(BankFormatType bankFormatType, StringPool stringPool, StatementReadMode readMode) {
         switch (bankFormatType) {
             case RAIF:
-                return new RaiffeisenStatementParser();
+                return new RaiffeisenStatementParser(stringPool, readMode);
             case ALFA:
-                return new AlfaStatementParser();
+                return new AlfaStatementParser(stringPool, readMode);
             default:
                 throw new IllegalArgumentException(String.format("Unsupported BankFormatType: %s", bankFormatType));
         }
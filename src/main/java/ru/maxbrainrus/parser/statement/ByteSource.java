@@ -0,0 +1,50 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Window over input bytes for {@link StatementTokenizer}.
+ */
+interface ByteSource extends Closeable {
+    /**
+     * @return buffer with available bytes in [0, limit). Absolute positions are used, buffer position is ignored.
+     */
+    ByteBuffer buffer();
+
+    /**
+     * Drops bytes before 'from', moves byte at 'from' to index 0 and appends next input bytes after the kept ones.
+     * Buffer may be replaced, so {@link #buffer()} must be called again.
+     *
+     * @return false if there is no more input
+     */
+    boolean refill(int from) throws IOException;
+
+    /**
+     * Source over bytes which are all already in memory
+     */
+    static ByteSource wrap(ByteBuffer bytes) {
+        return new ByteSource() {
+            private ByteBuffer buffer = bytes.slice();
+
+            @Override
+            public ByteBuffer buffer() {
+                return buffer;
+            }
+
+            @Override
+            public boolean refill(int from) {
+                // ByteBuffer.position(int) is Java 9+
+                ((Buffer) buffer).position(from);
+                buffer = buffer.slice();
+                return false;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads channel into reusable direct buffer. Buffer grows only if a single record doesn't fit into it.
+ * Position, limit and flip are called as {@link Buffer} methods, their ByteBuffer overrides are Java 9+.
+ */
+class ChannelByteSource implements ByteSource {
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+
+    ChannelByteSource(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    ChannelByteSource(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        ((Buffer) this.buffer).limit(0);
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    @Override
+    public boolean refill(int from) throws IOException {
+        ((Buffer) buffer).position(from);
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            ((Buffer) buffer).flip();
+            buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2).put(buffer);
+        }
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        ((Buffer) buffer).flip();
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.maxbrainrus.parser.statement;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads statements compressed with gzip (".gz" file) and bundles of statements in zip (".zip" file)
+ * on the fly without extracting them to disk. Every file entry of zip is a separate statement with its own header.
+ */
+class CompressedStatements {
+    static final String GZIP_SUFFIX = ".gz";
+    static final String ZIP_SUFFIX = ".zip";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private CompressedStatements() {
+    }
+
+    private static boolean hasSuffix(String fileName, String suffix) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(suffix);
+    }
+
+    static boolean isGzip(String fileName) {
+        return hasSuffix(fileName, GZIP_SUFFIX);
+    }
+
+    static boolean isZip(String fileName) {
+        return hasSuffix(fileName, ZIP_SUFFIX);
+    }
+
+    static InputStream openGzip(String fileName) throws IOException {
+        InputStream in = new FileInputStream(fileName);
+        try {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    static ZipInputStream openZip(String fileName) throws IOException {
+        return new ZipInputStream(new FileInputStream(fileName));
+    }
+
+    /**
+     * Opens the only statement of plain or gzip file or the first statement of zip bundle
+     */
+    static InputStream openFirstStatement(String fileName) throws IOException {
+        if (isZip(fileName)) {
+            ZipInputStream zip = openZip(fileName);
+            try {
+                nextEntry(zip);
+                return zip;
+            } catch (IOException | RuntimeException e) {
+                zip.close();
+                throw e;
+            }
+        }
+        return isGzip(fileName) ? openGzip(fileName) : new FileInputStream(fileName);
+    }
+
+    /**
+     * Moves zip to the next file entry skipping directories.
+     *
+     * @return content of the entry, which doesn't close the zip on close, or null if there are no more entries
+     */
+    @Nullable
+    static InputStream nextEntry(ZipInputStream zip) throws IOException {
+        ZipEntry entry;
+        do {
+            entry = zip.getNextEntry();
+        } while (entry != null && entry.isDirectory());
+        if (entry == null) {
+            return null;
+        }
+        return new FilterInputStream(zip) {
+            @Override
+            public void close() throws IOException {
+                zip.closeEntry();
+            }
+        };
+    }
+
+    /**
+     * Reads whole content of statements of the file: the only one of plain or gzip file, all entries of zip.
+     */
+    static List<byte[]> readStatements(String fileName) throws IOException {
+        List<byte[]> result = new ArrayList<>();
+        if (isZip(fileName)) {
+            try (ZipInputStream zip = openZip(fileName)) {
+                InputStream entry;
+                while ((entry = nextEntry(zip)) != null) {
+                    result.add(readAll(entry));
+                }
+            }
+        } else if (isGzip(fileName)) {
+            try (InputStream in = openGzip(fileName)) {
+                result.add(readAll(in));
+            }
+        } else {
+            result.add(Files.readAllBytes(Paths.get(fileName)));
+        }
+        return result;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
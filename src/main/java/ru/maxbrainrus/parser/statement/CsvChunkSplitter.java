@@ -0,0 +1,78 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits bytes of single-byte encoded csv into chunks of whole records.
+ * Line breaks inside quoted fields are not treated as record boundaries.
+ * Quote opens quoted field only at the start of field, as in commons-csv.
+ */
+class CsvChunkSplitter {
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final byte delimiter;
+    private final byte quote;
+
+    CsvChunkSplitter(char delimiter, char quote) {
+        this.delimiter = (byte) delimiter;
+        this.quote = (byte) quote;
+    }
+
+    /**
+     * @return position right after the end of the first record starting at 'from' (including its line break)
+     */
+    int findRecordEnd(byte[] content, int from) {
+        return findBoundary(content, from, from + 1);
+    }
+
+    /**
+     * @return boundaries of chunks: chunk i is [boundaries[i], boundaries[i + 1])
+     */
+    int[] split(byte[] content, int from, int chunkSize) {
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(from);
+        int position = from;
+        while (position < content.length) {
+            position = findBoundary(content, position, position + chunkSize);
+            boundaries.add(position);
+        }
+        return boundaries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Scans records from 'from' (must be start of record) and returns the first record boundary not less than 'target'.
+     */
+    private int findBoundary(byte[] content, int from, int target) {
+        boolean fieldStart = true;
+        boolean quoted = false;
+        int i = from;
+        while (i < content.length) {
+            byte b = content[i++];
+            if (quoted) {
+                if (b == quote) {
+                    if (i < content.length && content[i] == quote) {
+                        i++; // escaped quote
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (b == CR || b == LF) {
+                if (b == CR && i < content.length && content[i] == LF) {
+                    i++;
+                }
+                if (i >= target) {
+                    return i;
+                }
+                fieldStart = true;
+            } else if (b == delimiter) {
+                fieldStart = true;
+            } else {
+                quoted = fieldStart && b == quote;
+                fieldStart = false;
+            }
+        }
+        return content.length;
+    }
+}
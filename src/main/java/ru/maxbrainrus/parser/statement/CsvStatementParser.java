@@ -4,50 +4,220 @@ import lombok.SneakyThrows;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import ru.maxbrainrus.parser.StringPool;
 import ru.maxbrainrus.transaction.MoneyTransaction;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import java.util.zip.ZipInputStream;
 
 public abstract class CsvStatementParser implements BankStatementParser {
+    public static final StatementReadMode DEFAULT_READ_MODE = StatementReadMode.CHANNEL;
+
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    protected final StringPool stringPool;
+    private final StatementReadMode readMode;
+
+    protected CsvStatementParser(StringPool stringPool, StatementReadMode readMode) {
+        this.stringPool = stringPool;
+        this.readMode = readMode;
+    }
+
     private static Charset getCharset1251() {
         return Charset.forName("windows-1251");
     }
 
     @SneakyThrows
-    private static <T> T withOpenFile(String fileName, Function<InputStream, T> consumer) {
-        try (FileInputStream in = new FileInputStream(fileName)) {
-            return consumer.apply(in);
+    private static void close(Closeable closeable) {
+        closeable.close();
+    }
+
+    @SneakyThrows
+    private static CSVParser openCsvParser(InputStream in, Charset charset, CSVFormat csvFormat) {
+        try {
+            return csvFormat.parse(new InputStreamReader(in, charset));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
         }
     }
 
+    private static StatementHeader getHeader(CSVParser csvParser) {
+        Map<String, Integer> headerMap = csvParser.getHeaderMap();
+        String[] header = new String[headerMap.size()];
+        headerMap.forEach((name, index) -> header[index] = name);
+        return new StatementHeader(header);
+    }
+
+    private static StatementHeader getHeader(StatementRecord record) {
+        String[] header = new String[record.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = record.get(i);
+        }
+        return new StatementHeader(header);
+    }
+
+    @Override
+    public Stream<MoneyTransaction> streamBankStatement(String inputDataFileName, String sourceWallet) {
+        return streamBankStatement(inputDataFileName, sourceWallet, (StatementDateFilter) null);
+    }
+
+    /**
+     * Dates of records are read before anything else, so old records are skipped without parsing descriptions and amounts.
+     * Gzip file and every statement of zip bundle are decompressed on the fly.
+     */
+    @Override
     @SneakyThrows
-    private static <T> T withParseInputStream(InputStream in, Charset charset, CSVFormat csvFormat, Function<CSVParser, T> consumer) {
-        try (InputStreamReader isr = new InputStreamReader(in, charset)) {
-            try (CSVParser csvParser = csvFormat.parse(isr)) {
-                return consumer.apply(csvParser);
-            }
+    public Stream<MoneyTransaction> streamBankStatement(String inputDataFileName, String sourceWallet, @Nullable StatementDateFilter dateFilter) {
+        if (CompressedStatements.isZip(inputDataFileName)) {
+            ZipBundleSpliterator spliterator = new ZipBundleSpliterator(CompressedStatements.openZip(inputDataFileName), sourceWallet, dateFilter);
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> close(spliterator));
+        }
+        if (CompressedStatements.isGzip(inputDataFileName)) {
+            return streamBankStatement(CompressedStatements.openGzip(inputDataFileName), sourceWallet, dateFilter);
+        }
+        switch (readMode) {
+            case COMMONS_CSV:
+                return streamBankStatement(new FileInputStream(inputDataFileName), sourceWallet, dateFilter);
+            case MAPPED:
+                return streamBankStatement(openMapped(inputDataFileName), null, sourceWallet, dateFilter);
+            default:
+                return streamBankStatement(new ChannelByteSource(FileChannel.open(Paths.get(inputDataFileName))), null, sourceWallet, dateFilter);
         }
     }
 
+    private static ByteSource openMapped(String inputDataFileName) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(inputDataFileName));
+        try {
+            return new MappedByteSource(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Stream<MoneyTransaction> streamBankStatement(InputStream inputData, String sourceWallet) {
+        return streamBankStatement(inputData, sourceWallet, (StatementDateFilter) null);
+    }
+
     @Override
-    public List<MoneyTransaction> parseBankStatement(String inputDataFileName, String sourceWallet) {
-        return withOpenFile(inputDataFileName, inputStream ->
-                parseBankStatement(inputStream, sourceWallet));
+    public Stream<MoneyTransaction> streamBankStatement(InputStream inputData, String sourceWallet, @Nullable StatementDateFilter dateFilter) {
+        if (readMode == StatementReadMode.COMMONS_CSV) {
+            return streamBankStatement(inputData, sourceWallet, getCsvFormat(), dateFilter);
+        }
+        return streamBankStatement(new ChannelByteSource(Channels.newChannel(inputData)), null, sourceWallet, dateFilter);
+    }
+
+    private Stream<MoneyTransaction> streamBankStatement(InputStream inputData, String sourceWallet, CSVFormat csvFormat,
+                                                         @Nullable StatementDateFilter dateFilter) {
+        CSVParser csvParser = openCsvParser(inputData, getCharset1251(), csvFormat);
+        return StreamSupport.stream(new CsvParserSpliterator(csvParser, sourceWallet, dateFilter), false)
+                .onClose(() -> close(csvParser));
+    }
+
+    /**
+     * @param header header of statement or null if it's the first record of the source
+     */
+    private Stream<MoneyTransaction> streamBankStatement(ByteSource source, @Nullable StatementHeader header, String sourceWallet,
+                                                         @Nullable StatementDateFilter dateFilter) {
+        CSVFormat csvFormat = getCsvFormat();
+        StatementTokenizer tokenizer = new StatementTokenizer(source, csvFormat.getDelimiter(), csvFormat.getQuoteCharacter());
+        return StreamSupport.stream(new TokenizerSpliterator(tokenizer, header, sourceWallet, dateFilter), false)
+                .onClose(() -> close(tokenizer));
     }
 
     public List<MoneyTransaction> parseBankStatement(InputStream inputData, String sourceWallet) {
-        return withParseInputStream(inputData, getCharset1251(), getCsvFormat(),
-                csvParser ->
-                        StreamSupport.stream(csvParser.spliterator(), false)
-                                .map(record -> readTransaction(record, sourceWallet))
-                                .collect(Collectors.toList()));
+        try (Stream<MoneyTransaction> transactions = streamBankStatement(inputData, sourceWallet)) {
+            return transactions.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Compressed statement is decompressed into memory first
+     */
+    @Override
+    @SneakyThrows
+    public List<MoneyTransaction> parseBankStatementInParallel(String inputDataFileName, String sourceWallet) {
+        List<MoneyTransaction> result = new ArrayList<>();
+        for (byte[] statement : CompressedStatements.readStatements(inputDataFileName)) {
+            result.addAll(parseBankStatementInParallel(statement, sourceWallet, ForkJoinPool.commonPool()));
+        }
+        return result;
+    }
+
+    /**
+     * Splits statement at record boundaries and parses chunks on the pool with header resolved from the first record.
+     * Transactions are returned in the same order as in the statement.
+     */
+    public List<MoneyTransaction> parseBankStatementInParallel(byte[] statement, String sourceWallet, ForkJoinPool pool) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, statement.length / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        return parseBankStatementInParallel(statement, sourceWallet, pool, chunkSize);
+    }
+
+    List<MoneyTransaction> parseBankStatementInParallel(byte[] statement, String sourceWallet, ForkJoinPool pool, int chunkSize) {
+        CSVFormat csvFormat = getCsvFormat();
+        CsvChunkSplitter splitter = new CsvChunkSplitter(csvFormat.getDelimiter(), csvFormat.getQuoteCharacter());
+        int headerEnd = splitter.findRecordEnd(statement, 0);
+        StatementHeader header = readHeader(statement, headerEnd, csvFormat);
+        CSVFormat chunkFormat = csvFormat
+                .withHeader(header.getNames())
+                .withSkipHeaderRecord(false);
+        int[] boundaries = splitter.split(statement, headerEnd, chunkSize);
+
+        List<ForkJoinTask<List<MoneyTransaction>>> tasks = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            int offset = boundaries[i];
+            int length = boundaries[i + 1] - boundaries[i];
+            if (readMode == StatementReadMode.COMMONS_CSV) {
+                tasks.add(pool.submit(() -> parseChunk(streamBankStatement(new ByteArrayInputStream(statement, offset, length), sourceWallet, chunkFormat, null))));
+            } else {
+                tasks.add(pool.submit(() -> parseChunk(streamBankStatement(ByteSource.wrap(ByteBuffer.wrap(statement, offset, length)), header, sourceWallet, null))));
+            }
+        }
+        List<MoneyTransaction> result = new ArrayList<>();
+        tasks.forEach(task -> result.addAll(task.join()));
+        return result;
+    }
+
+    @SneakyThrows
+    private static StatementHeader readHeader(byte[] statement, int headerEnd, CSVFormat csvFormat) {
+        try (StatementTokenizer tokenizer = new StatementTokenizer(ByteSource.wrap(ByteBuffer.wrap(statement, 0, headerEnd)),
+                csvFormat.getDelimiter(), csvFormat.getQuoteCharacter())) {
+            return tokenizer.next() ? getHeader(tokenizer) : new StatementHeader(new String[0]);
+        }
+    }
+
+    private static List<MoneyTransaction> parseChunk(Stream<MoneyTransaction> chunk) {
+        try (Stream<MoneyTransaction> transactions = chunk) {
+            return transactions.collect(Collectors.toList());
+        }
     }
 
     protected CSVFormat getCsvFormat() {
@@ -56,5 +226,216 @@ public abstract class CsvStatementParser implements BankStatementParser {
                 .withFirstRecordAsHeader();
     }
 
-    protected abstract MoneyTransaction readTransaction(CSVRecord record, String sourceWallet);
+    /**
+     * Creates reader of records with the given header. Column indexes should be resolved here once per statement.
+     *
+     * @throws IllegalArgumentException if required column is absent
+     */
+    protected abstract RecordReader createRecordReader(StatementHeader header);
+
+    /**
+     * Creates reader of transaction dates with the given header, see {@link #createRecordReader(StatementHeader)}
+     */
+    protected abstract DateReader createDateReader(StatementHeader header);
+
+    /**
+     * Reads transaction from record. It may be used by several threads at once.
+     */
+    @FunctionalInterface
+    protected interface RecordReader {
+        MoneyTransaction readTransaction(StatementRecord record, String sourceWallet);
+    }
+
+    /**
+     * Reads only date of record transaction, so the record can be skipped without parsing the rest of it.
+     * The date must be the same as the date of transaction read by {@link RecordReader}.
+     */
+    @FunctionalInterface
+    protected interface DateReader {
+        LocalDate readDate(StatementRecord record);
+    }
+
+    private static class CsvStatementRecord implements StatementRecord {
+        private final CSVRecord record;
+
+        CsvStatementRecord(CSVRecord record) {
+            this.record = record;
+        }
+
+        @Override
+        public String get(int column) {
+            if (column < 0 || column >= record.size()) {
+                throw new IllegalArgumentException(String.format("Index %d is out of record with %d values (line %d)",
+                        column, record.size(), record.getRecordNumber() + 1));
+            }
+            return record.get(column);
+        }
+
+        @Override
+        public int size() {
+            return record.size();
+        }
+    }
+
+    /**
+     * Creates record readers on the first record, so empty statement is read without errors whatever its header is.
+     */
+    private abstract class RecordSpliterator extends Spliterators.AbstractSpliterator<MoneyTransaction> {
+        private final String sourceWallet;
+        @Nullable
+        private final StatementDateFilter dateFilter;
+        private RecordReader recordReader;
+        private DateReader dateReader;
+
+        RecordSpliterator(String sourceWallet, @Nullable StatementDateFilter dateFilter) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.sourceWallet = sourceWallet;
+            this.dateFilter = dateFilter;
+        }
+
+        /**
+         * @return the next record or null at the end of statement
+         */
+        @Nullable
+        protected abstract StatementRecord nextRecord();
+
+        /**
+         * Called after the first record is read
+         */
+        protected abstract StatementHeader getHeader();
+
+        @Override
+        public boolean tryAdvance(Consumer<? super MoneyTransaction> action) {
+            while (dateFilter == null || !dateFilter.isFinished()) {
+                StatementRecord record = nextRecord();
+                if (record == null) {
+                    return false;
+                }
+                if (recordReader == null) {
+                    StatementHeader header = getHeader();
+                    recordReader = createRecordReader(header);
+                    dateReader = dateFilter == null ? null : createDateReader(header);
+                }
+                if (isAccepted(record)) {
+                    action.accept(recordReader.readTransaction(record, sourceWallet));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isAccepted(StatementRecord record) {
+            return dateFilter == null || !dateFilter.isDateChecked() || dateFilter.accept(dateReader.readDate(record));
+        }
+    }
+
+    private class CsvParserSpliterator extends RecordSpliterator {
+        private final CSVParser csvParser;
+        private final Iterator<CSVRecord> records;
+
+        CsvParserSpliterator(CSVParser csvParser, String sourceWallet, @Nullable StatementDateFilter dateFilter) {
+            super(sourceWallet, dateFilter);
+            this.csvParser = csvParser;
+            this.records = csvParser.iterator();
+        }
+
+        @Nullable
+        @Override
+        protected StatementRecord nextRecord() {
+            return records.hasNext() ? new CsvStatementRecord(records.next()) : null;
+        }
+
+        @Override
+        protected StatementHeader getHeader() {
+            return CsvStatementParser.getHeader(csvParser);
+        }
+    }
+
+    private class TokenizerSpliterator extends RecordSpliterator {
+        private final StatementTokenizer tokenizer;
+        private StatementHeader header;
+
+        TokenizerSpliterator(StatementTokenizer tokenizer, @Nullable StatementHeader header, String sourceWallet,
+                             @Nullable StatementDateFilter dateFilter) {
+            super(sourceWallet, dateFilter);
+            this.tokenizer = tokenizer;
+            this.header = header;
+        }
+
+        @Nullable
+        @Override
+        protected StatementRecord nextRecord() {
+            try {
+                if (header == null) {
+                    if (!tokenizer.next()) {
+                        return null;
+                    }
+                    header = CsvStatementParser.getHeader(tokenizer);
+                }
+                return tokenizer.next() ? tokenizer : null;
+            } catch (IOException e) {
+                // Same as commons-csv
+                throw new IllegalStateException("IOException reading next record: " + e, e);
+            }
+        }
+
+        @Override
+        protected StatementHeader getHeader() {
+            return header;
+        }
+    }
+
+    /**
+     * Transactions of all statements of zip bundle one after another
+     */
+    private class ZipBundleSpliterator extends Spliterators.AbstractSpliterator<MoneyTransaction> implements Closeable {
+        private final ZipInputStream zip;
+        private final String sourceWallet;
+        @Nullable
+        private final StatementDateFilter dateFilter;
+        private Stream<MoneyTransaction> statement;
+        private Spliterator<MoneyTransaction> transactions;
+
+        ZipBundleSpliterator(ZipInputStream zip, String sourceWallet, @Nullable StatementDateFilter dateFilter) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.zip = zip;
+            this.sourceWallet = sourceWallet;
+            this.dateFilter = dateFilter;
+        }
+
+        @Override
+        @SneakyThrows
+        public boolean tryAdvance(Consumer<? super MoneyTransaction> action) {
+            while (transactions == null || !transactions.tryAdvance(action)) {
+                closeStatement();
+                InputStream entry = CompressedStatements.nextEntry(zip);
+                if (entry == null) {
+                    return false;
+                }
+                if (dateFilter != null) {
+                    dateFilter.startStatement();
+                }
+                statement = streamBankStatement(entry, sourceWallet, dateFilter);
+                transactions = statement.spliterator();
+            }
+            return true;
+        }
+
+        private void closeStatement() {
+            if (statement != null) {
+                statement.close();
+                statement = null;
+                transactions = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                closeStatement();
+            } finally {
+                zip.close();
+            }
+        }
+    }
 }
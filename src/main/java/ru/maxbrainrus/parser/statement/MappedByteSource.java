@@ -0,0 +1,53 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maps file into memory by windows, so bytes are read by tokenizer without copying into heap.
+ * Window is moved to the start of incomplete record and grows only if a single record doesn't fit into it.
+ */
+class MappedByteSource implements ByteSource {
+    static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+    private long windowStart;
+
+    MappedByteSource(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedByteSource(FileChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    @Override
+    public boolean refill(int from) throws IOException {
+        long windowEnd = windowStart + buffer.limit();
+        long start = windowStart + from;
+        long kept = windowEnd - start;
+        long end = Math.min(fileSize, start + Math.max(windowSize, kept * 2));
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Record at %d is too long to be mapped", start));
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        windowStart = start;
+        return end > windowEnd;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,41 +1,75 @@
 package ru.maxbrainrus.parser.statement;
 
-import org.apache.commons.csv.CSVRecord;
+import ru.maxbrainrus.parser.StringPool;
 import ru.maxbrainrus.transaction.AmountWithCcy;
 import ru.maxbrainrus.transaction.Amounts;
 import ru.maxbrainrus.transaction.MoneyTransaction;
 import ru.maxbrainrus.transaction.OperationType;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class RaiffeisenStatementParser extends CsvStatementParser implements BankStatementParser {
 
-    public static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    public static final DateTimeFormatter DATE_TIME_FORMATTER = StatementDateParser.DATE_TIME_FORMATTER;
+
+    private final StatementDateParser dateParser = new StatementDateParser();
+
+    public RaiffeisenStatementParser() {
+        this(new StringPool());
+    }
+
+    public RaiffeisenStatementParser(StringPool stringPool) {
+        this(stringPool, DEFAULT_READ_MODE);
+    }
+
+    public RaiffeisenStatementParser(StringPool stringPool, StatementReadMode readMode) {
+        super(stringPool, readMode);
+    }
+
+    private static int getOperationDateColumn(StatementHeader header) {
+        int column = header.getIndex("Дата операции");
+        if (column == StatementHeader.NOT_FOUND) {
+            column = header.getRequiredIndex("Дата транзакции");
+        }
+        return column;
+    }
+
+    @Override
+    protected RecordReader createRecordReader(StatementHeader header) {
+        int dateColumn = getOperationDateColumn(header);
+        int descriptionColumn = header.getRequiredIndex("Описание");
+        int amountColumn = header.getRequiredIndex("Сумма в валюте счета");
+        return (record, sourceWallet) -> readTransaction(record, sourceWallet, dateColumn, descriptionColumn, amountColumn);
+    }
 
     @Override
-    protected MoneyTransaction readTransaction(CSVRecord record, String sourceWallet) {
-        BigDecimal amount = readAmount(record);
-        String description = getDescription(record);
+    protected DateReader createDateReader(StatementHeader header) {
+        int dateColumn = getOperationDateColumn(header);
+        return record -> dateParser.parseDateTime(record.getChars(dateColumn));
+    }
+
+    private MoneyTransaction readTransaction(StatementRecord record, String sourceWallet, int dateColumn, int descriptionColumn, int amountColumn) {
+        CharSequence amountValue = record.getChars(amountColumn);
+        long amount = AmountParser.parseMinorUnits(amountValue);
+        int scale = AmountParser.parseScale(amountValue);
+        String description = stringPool.canonicalize(record.get(descriptionColumn));
         OperationType operationType = getOperationType(amount, description);
 
         MoneyTransaction.MoneyTransactionBuilder moneyTransactionBuilder = MoneyTransaction.builder()
-                .date(getOperationDate(record))
-                .amounts(getAmount(amount.abs()))
+                .date(dateParser.parseDateTime(record.getChars(dateColumn)))
+                .amounts(getAmount(Math.abs(amount), scale))
                 .description(description)
                 .operationType(operationType);
 
-        setWalletValue(moneyTransactionBuilder, sourceWallet, amount, operationType);
+        setWalletValue(moneyTransactionBuilder, stringPool.canonicalize(sourceWallet), amount, operationType);
 
         return moneyTransactionBuilder
                 .build();
     }
 
-    private static void setWalletValue(MoneyTransaction.MoneyTransactionBuilder builder, String sourceWallet, BigDecimal amount, OperationType operationType) {
+    private static void setWalletValue(MoneyTransaction.MoneyTransactionBuilder builder, String sourceWallet, long amount, OperationType operationType) {
         if (operationType == OperationType.TRANSFER) {
-            if (amount.signum() > 0) {
+            if (amount > 0) {
                 builder.targetWallet(sourceWallet);
             } else {
                 builder.sourceWallet(sourceWallet);
@@ -45,50 +79,26 @@ public class RaiffeisenStatementParser extends CsvStatementParser implements Ban
         }
     }
 
-    private static OperationType getOperationType(BigDecimal amount, String transactionText) {
+    private static OperationType getOperationType(long amount, String transactionText) {
         if (transactionText.contains("перевод") ||
                 transactionText.contains("Перевод") ||
                 transactionText.contains("ATM ") ||
                 transactionText.contains("CARD2CARD")) {
             return OperationType.TRANSFER;
-        } else if (amount.signum() > 0) {
+        } else if (amount > 0) {
             return OperationType.INCOME;
         } else {
             return OperationType.EXPENDITURE;
         }
     }
 
-    private String getDescription(CSVRecord record) {
-        return record.get("Описание");
-    }
-
-    private Amounts getAmount(BigDecimal amount) {
+    private Amounts getAmount(long amount, int scale) {
         return Amounts.builder()
                 .sourceAmount(
                         AmountWithCcy.builder()
-                                .amount(amount)
+                                .minorUnits(amount)
+                                .scale(scale)
                                 .build())
                 .build();
     }
-
-    private BigDecimal readAmount(CSVRecord record) {
-        String amountValue = record.get("Сумма в валюте счета");
-        amountValue = amountValue.replaceAll(" ", "");
-        return new BigDecimal(amountValue);
-    }
-
-    private LocalDate getOperationDate(CSVRecord record) {
-        String operationDateValue = readOperationDate(record);
-        return LocalDateTime.parse(operationDateValue, DATE_TIME_FORMATTER).toLocalDate();
-    }
-
-    private String readOperationDate(CSVRecord record) {
-        if (record.isMapped("Дата операции")) {
-            return record.get("Дата операции");
-        } else if (record.isMapped("Дата транзакции")) {
-            return record.get("Дата транзакции");
-        } else {
-            throw new IllegalArgumentException();
-        }
-    }
 }
@@ -0,0 +1,110 @@
+package ru.maxbrainrus.parser.statement;
+
+import ru.maxbrainrus.parser.Streams;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+/**
+ * Cut date pushed down to parser: records with date less or equals cut date are skipped
+ * before their descriptions and amounts are parsed.
+ * <p>
+ * Reading stops at the cut boundary if date order of statement is known:
+ * at the first old record of {@link StatementDateOrder#DESCENDING} statement, and dates of
+ * {@link StatementDateOrder#ASCENDING} statement are not read after the first new record.
+ * Order of read dates is tracked, so unknown order can be detected for the next runs.
+ * <p>
+ * Filter keeps state of one statement reading, so a new instance is needed for every statement.
+ */
+public class StatementDateFilter {
+    private final LocalDate cutDate;
+    private final StatementDateOrder dateOrder;
+
+    private boolean boundaryPassed;
+    private boolean finished;
+    private long skipped;
+
+    @Nullable
+    private LocalDate previousDate;
+    private boolean ascending;
+    private boolean descending;
+
+    public StatementDateFilter(LocalDate cutDate, StatementDateOrder dateOrder) {
+        this.cutDate = cutDate;
+        this.dateOrder = dateOrder;
+    }
+
+    /**
+     * @return false if every next record is accepted whatever its date is
+     */
+    boolean isDateChecked() {
+        return !boundaryPassed;
+    }
+
+    /**
+     * @return true if no more records can be accepted and reading of statement should stop
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Resets reading state for the next statement of a bundle, see {@link CompressedStatements}
+     */
+    void startStatement() {
+        boundaryPassed = false;
+        finished = false;
+        previousDate = null;
+    }
+
+    boolean accept(LocalDate date) {
+        trackOrder(date);
+        if (date.isAfter(cutDate)) {
+            boundaryPassed = dateOrder == StatementDateOrder.ASCENDING;
+            return true;
+        }
+        skipped++;
+        finished = dateOrder == StatementDateOrder.DESCENDING;
+        return false;
+    }
+
+    private void trackOrder(LocalDate date) {
+        if (previousDate != null) {
+            int compare = date.compareTo(previousDate);
+            ascending |= compare > 0;
+            descending |= compare < 0;
+        }
+        previousDate = date;
+    }
+
+    /**
+     * Applies filter to already parsed transactions, for parsers which can't skip records before parsing.
+     */
+    public Stream<MoneyTransaction> apply(Stream<MoneyTransaction> transactions) {
+        return Streams.takeWhile(transactions, transaction -> !isFinished())
+                .filter(transaction -> !isDateChecked() || accept(transaction.getDate()));
+    }
+
+    public LocalDate getCutDate() {
+        return cutDate;
+    }
+
+    /**
+     * @return number of read records removed by the filter. Records after the boundary of ordered statement are not read
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return order of dates read so far or {@link StatementDateOrder#UNKNOWN} if they are not ordered or all equal
+     */
+    public StatementDateOrder getObservedOrder() {
+        if (ascending == descending) {
+            return StatementDateOrder.UNKNOWN;
+        }
+        return ascending ? StatementDateOrder.ASCENDING : StatementDateOrder.DESCENDING;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.maxbrainrus.parser.statement;
+
+/**
+ * Order of transaction dates in statement. Known order lets reading stop at the first too old transaction.
+ */
+public enum StatementDateOrder {
+    UNKNOWN,
+    /**
+     * Old transactions first
+     */
+    ASCENDING,
+    /**
+     * New transactions first
+     */
+    DESCENDING,
+}
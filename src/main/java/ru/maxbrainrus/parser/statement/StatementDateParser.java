@@ -0,0 +1,143 @@
+package ru.maxbrainrus.parser.statement;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Fast parser of fixed layout dates "dd.MM.yyyy HH:mm" and "dd.MM.yy" reading digits directly.
+ * <p>
+ * A statement covers only a few hundred distinct days, so parsed dates are cached by packed date digits.
+ * The cache is a plain array of immutable dates checked by value on read, so it is safe to share between threads.
+ * Values which don't fit the layout fall back to {@link DateTimeFormatter} to keep its behaviour and errors.
+ */
+class StatementDateParser {
+    static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    static final DateTimeFormatter SHORT_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yy");
+    static final int SHORT_DATE_LENGTH = 8;
+
+    private static final int DATE_TIME_LENGTH = 16;
+    private static final int SHORT_DATE_BASE_YEAR = 2000;
+    private static final int CACHE_SIZE = 1024;
+
+    private final LocalDate[] cache = new LocalDate[CACHE_SIZE];
+
+    private static int digit(CharSequence value, int index) {
+        char c = value.charAt(index);
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    private static int twoDigits(CharSequence value, int index) {
+        int high = digit(value, index);
+        int low = digit(value, index + 1);
+        return high < 0 || low < 0 ? -1 : high * 10 + low;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * Parses date part of "dd.MM.yyyy HH:mm" value
+     */
+    LocalDate parseDateTime(CharSequence value) {
+        if (value.length() == DATE_TIME_LENGTH
+                && value.charAt(2) == '.' && value.charAt(5) == '.' && value.charAt(10) == ' ' && value.charAt(13) == ':') {
+            int day = twoDigits(value, 0);
+            int month = twoDigits(value, 3);
+            int century = twoDigits(value, 6);
+            int yearOfCentury = twoDigits(value, 8);
+            int hour = twoDigits(value, 11);
+            int minute = twoDigits(value, 14);
+            if (century >= 0 && yearOfCentury >= 0 && hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+                LocalDate date = getDate(century * 100 + yearOfCentury, month, day);
+                if (date != null) {
+                    return date;
+                }
+            }
+        }
+        return LocalDateTime.parse(value, DATE_TIME_FORMATTER).toLocalDate();
+    }
+
+    /**
+     * Parses whole "dd.MM.yy" value
+     */
+    LocalDate parseShortDate(CharSequence value) {
+        if (value.length() == SHORT_DATE_LENGTH) {
+            return parseShortDate(value, 0);
+        }
+        return SHORT_DATE_FORMATTER.parse(value, LocalDate::from);
+    }
+
+    /**
+     * Parses "dd.MM.yy" date starting at offset in value
+     */
+    LocalDate parseShortDate(CharSequence value, int offset) {
+        if (value.charAt(offset + 2) == '.' && value.charAt(offset + 5) == '.') {
+            int day = twoDigits(value, offset);
+            int month = twoDigits(value, offset + 3);
+            int yearOfCentury = twoDigits(value, offset + 6);
+            if (yearOfCentury >= 0) {
+                LocalDate date = getDate(SHORT_DATE_BASE_YEAR + yearOfCentury, month, day);
+                if (date != null) {
+                    return date;
+                }
+            }
+        }
+        return SHORT_DATE_FORMATTER.parse(value.subSequence(offset, offset + SHORT_DATE_LENGTH), LocalDate::from);
+    }
+
+    /**
+     * @return true if value has "dd.MM.yy" layout at offset (digits are not validated as date)
+     */
+    static boolean isShortDateAt(CharSequence value, int offset) {
+        return offset + SHORT_DATE_LENGTH <= value.length()
+                && digit(value, offset) >= 0 && digit(value, offset + 1) >= 0
+                && value.charAt(offset + 2) == '.'
+                && digit(value, offset + 3) >= 0 && digit(value, offset + 4) >= 0
+                && value.charAt(offset + 5) == '.'
+                && digit(value, offset + 6) >= 0 && digit(value, offset + 7) >= 0;
+    }
+
+    /**
+     * Finds the earliest of "dd.MM.yy" dates embedded in value. Dates are looked for as in {@link AlfaDescriptionScanner}:
+     * search continues right after the found date.
+     *
+     * @return the earliest date or null if there is no date in value
+     */
+    @Nullable
+    LocalDate findEarliestShortDate(CharSequence value) {
+        LocalDate earliestDate = null;
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (isShortDateAt(value, i)) {
+                LocalDate date = parseShortDate(value, i);
+                if (earliestDate == null || date.isBefore(earliestDate)) {
+                    earliestDate = date;
+                }
+                i += SHORT_DATE_LENGTH;
+            } else {
+                i++;
+            }
+        }
+        return earliestDate;
+    }
+
+    private LocalDate getDate(int year, int month, int day) {
+        int index = ((year * 12 + month) * 31 + day) & (CACHE_SIZE - 1);
+        LocalDate cached = cache[index];
+        if (cached != null && cached.getDayOfMonth() == day && cached.getMonthValue() == month && cached.getYear() == year) {
+            return cached;
+        }
+        if (!isValidDate(year, month, day)) {
+            return null;
+        }
+        LocalDate date = LocalDate.of(year, month, day);
+        cache[index] = date;
+        return date;
+    }
+}
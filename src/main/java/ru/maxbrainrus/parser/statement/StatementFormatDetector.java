@@ -0,0 +1,119 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects bank format of statement by the header record in the first {@link #SNIFF_BYTES} bytes,
+ * so statement is opened by the right parser without parse attempts.
+ * <p>
+ * Header is matched against signatures of formats: columns which header of the format must have.
+ * Detected format is cached by raw bytes of header, so statements of the same bank are matched once.
+ */
+class StatementFormatDetector {
+    static final int SNIFF_BYTES = 512;
+
+    private static final List<FormatSignature> SIGNATURES = Arrays.asList(
+            new FormatSignature(BankFormatType.ALFA, "Дата операции", "Описание операции"),
+            new FormatSignature(BankFormatType.RAIF, "Описание", "Сумма в валюте счета")
+    );
+    private static final int MAX_CACHED_HEADERS = 256;
+    private static final Map<String, BankFormatType> CACHE = new ConcurrentHashMap<>();
+
+    private StatementFormatDetector() {
+    }
+
+    static BankFormatType detect(String inputDataFileName) throws IOException {
+        try (InputStream in = CompressedStatements.openFirstStatement(inputDataFileName)) {
+            return detect(readPrefix(in));
+        }
+    }
+
+    /**
+     * @param inputData stream supporting mark, it's reset to the start of statement after detection
+     */
+    static BankFormatType detect(InputStream inputData) throws IOException {
+        inputData.mark(SNIFF_BYTES);
+        try {
+            return detect(readPrefix(inputData));
+        } finally {
+            inputData.reset();
+        }
+    }
+
+    private static byte[] readPrefix(InputStream in) throws IOException {
+        byte[] prefix = new byte[SNIFF_BYTES];
+        int length = 0;
+        int read;
+        while (length < prefix.length && (read = in.read(prefix, length, prefix.length - length)) >= 0) {
+            length += read;
+        }
+        return Arrays.copyOf(prefix, length);
+    }
+
+    /**
+     * @throws IllegalArgumentException if header doesn't match any format
+     */
+    static BankFormatType detect(byte[] prefix) throws IOException {
+        int headerEnd = findLineEnd(prefix);
+        // Bytes are kept as is, decoding of windows-1251 is not needed for the key
+        String key = new String(prefix, 0, headerEnd, StandardCharsets.ISO_8859_1);
+        BankFormatType cached = CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> columns = readHeader(prefix, headerEnd);
+        BankFormatType result = SIGNATURES.stream()
+                .filter(signature -> columns.containsAll(signature.columns))
+                .map(signature -> signature.bankFormatType)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "Can't detect bank format of statement with header %s, set it explicitly", columns)));
+        if (CACHE.size() >= MAX_CACHED_HEADERS) {
+            CACHE.clear();
+        }
+        CACHE.put(key, result);
+        return result;
+    }
+
+    private static int findLineEnd(byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (prefix[i] == '\r' || prefix[i] == '\n') {
+                return i;
+            }
+        }
+        return prefix.length;
+    }
+
+    private static Set<String> readHeader(byte[] prefix, int headerEnd) throws IOException {
+        try (StatementTokenizer tokenizer = new StatementTokenizer(ByteSource.wrap(ByteBuffer.wrap(prefix, 0, headerEnd)), ';', '"')) {
+            if (!tokenizer.next()) {
+                return Collections.emptySet();
+            }
+            Set<String> columns = new HashSet<>();
+            for (int i = 0; i < tokenizer.size(); i++) {
+                columns.add(tokenizer.get(i));
+            }
+            return columns;
+        }
+    }
+
+    private static class FormatSignature {
+        private final BankFormatType bankFormatType;
+        private final List<String> columns;
+
+        FormatSignature(BankFormatType bankFormatType, String... columns) {
+            this.bankFormatType = bankFormatType;
+            this.columns = Arrays.asList(columns);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column names of statement. Parsers resolve names to indexes once per file and then read records by indexes.
+ */
+public class StatementHeader {
+    public static final int NOT_FOUND = -1;
+
+    private final String[] names;
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * @throws IllegalArgumentException if names are not unique (as in commons-csv)
+     */
+    public StatementHeader(String[] names) {
+        this.names = names.clone();
+        for (int i = 0; i < names.length; i++) {
+            if (indexes.putIfAbsent(names[i], i) != null) {
+                throw new IllegalArgumentException(String.format("The header contains a duplicate name: \"%s\" in %s",
+                        names[i], Arrays.toString(names)));
+            }
+        }
+    }
+
+    /**
+     * @return index of column or {@link #NOT_FOUND}
+     */
+    public int getIndex(String name) {
+        return indexes.getOrDefault(name, NOT_FOUND);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public int getRequiredIndex(String name) {
+        int index = getIndex(name);
+        if (index == NOT_FOUND) {
+            throw new IllegalArgumentException(String.format("Mapping for %s not found, expected one of %s",
+                    name, Arrays.toString(names)));
+        }
+        return index;
+    }
+
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    public int size() {
+        return names.length;
+    }
+}
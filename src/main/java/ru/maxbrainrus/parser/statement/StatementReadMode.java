@@ -0,0 +1,19 @@
+package ru.maxbrainrus.parser.statement;
+
+/**
+ * How statement bytes are read and split into fields
+ */
+public enum StatementReadMode {
+    /**
+     * Reader decoding the whole input and commons-csv parser
+     */
+    COMMONS_CSV,
+    /**
+     * NIO channel and own tokenizer decoding only used fields
+     */
+    CHANNEL,
+    /**
+     * Memory mapped file and own tokenizer. Input streams are read as in {@link #CHANNEL} mode
+     */
+    MAPPED,
+}
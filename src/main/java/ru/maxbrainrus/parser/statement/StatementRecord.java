@@ -0,0 +1,21 @@
+package ru.maxbrainrus.parser.statement;
+
+/**
+ * Fields of one statement record by column index (see {@link StatementHeader#getIndex(String)}).
+ */
+public interface StatementRecord {
+    /**
+     * @throws IllegalArgumentException if the record has no such column
+     */
+    String get(int column);
+
+    /**
+     * Same as {@link #get(int)}, but may return a view of the field without creating String.
+     * The view is valid only until the next call of this record methods.
+     */
+    default CharSequence getChars(int column) {
+        return get(column);
+    }
+
+    int size();
+}
@@ -0,0 +1,278 @@
+package ru.maxbrainrus.parser.statement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Splits windows-1251 csv bytes into records and fields without decoding them.
+ * Only fields requested by parser are decoded with 256 entries table.
+ * <p>
+ * Follows commons-csv {@code CSVFormat.DEFAULT} rules: quote opens quoted field only at the start of field,
+ * quote inside quoted field is escaped by doubling it, CR, LF and CRLF end record, empty lines are skipped.
+ * <p>
+ * The tokenizer is the current record itself, so values are valid only until the next {@link #next()}.
+ */
+class StatementTokenizer implements StatementRecord, Closeable {
+    static final Charset CHARSET = Charset.forName("windows-1251");
+
+    private static final char[] CHARS = createDecodeTable(CHARSET);
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final int NEED_MORE_BYTES = -1;
+
+    private final ByteSource source;
+    private final byte delimiter;
+    private final byte quote;
+    private final FieldChars fieldChars = new FieldChars();
+
+    private ByteBuffer buffer;
+    private boolean endOfInput;
+    private int position;
+    private long lineNumber = 1;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    // Field has doubled quotes inside, so it can't be decoded as is
+    private boolean[] fieldEscaped = new boolean[16];
+    private char[] decoded = new char[256];
+
+    StatementTokenizer(ByteSource source, char delimiter, char quote) {
+        this.source = source;
+        this.delimiter = (byte) delimiter;
+        this.quote = (byte) quote;
+        this.buffer = source.buffer();
+    }
+
+    private static char[] createDecodeTable(Charset charset) {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return new String(bytes, charset).toCharArray();
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == CR || b == LF;
+    }
+
+    /**
+     * Moves to the next not empty record.
+     *
+     * @return false if there are no more records
+     * @throws IOException if input can't be read or has malformed quoted field
+     */
+    boolean next() throws IOException {
+        while (true) {
+            int limit = buffer.limit();
+            while (position < limit && isLineBreak(buffer.get(position))) {
+                countLine(position, limit);
+                position++;
+            }
+            if (position < limit) {
+                int recordEnd = tokenize(position, limit);
+                if (recordEnd != NEED_MORE_BYTES) {
+                    position = recordEnd;
+                    lineNumber++;
+                    return true;
+                }
+            } else if (endOfInput) {
+                return false;
+            }
+            endOfInput = !source.refill(position);
+            buffer = source.buffer();
+            position = 0;
+        }
+    }
+
+    private void countLine(int index, int limit) {
+        // CRLF is one line
+        if (buffer.get(index) == LF || index + 1 >= limit || buffer.get(index + 1) != LF) {
+            lineNumber++;
+        }
+    }
+
+    /**
+     * @return position after the record line break or {@link #NEED_MORE_BYTES} if the record is not complete
+     */
+    private int tokenize(int from, int limit) throws IOException {
+        fieldCount = 0;
+        int i = from;
+        while (true) {
+            if (i < limit && buffer.get(i) == quote) {
+                int start = ++i;
+                boolean escaped = false;
+                while (true) {
+                    if (i >= limit) {
+                        if (endOfInput) {
+                            throw new IOException(String.format("(startline %d) EOF reached before encapsulated token finished", lineNumber));
+                        }
+                        return NEED_MORE_BYTES;
+                    }
+                    if (buffer.get(i) == quote) {
+                        if (i + 1 >= limit && !endOfInput) {
+                            return NEED_MORE_BYTES;
+                        }
+                        if (i + 1 < limit && buffer.get(i + 1) == quote) {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                addField(start, i++, escaped);
+                // Only whitespaces are allowed between closing quote and delimiter
+                while (true) {
+                    if (i >= limit) {
+                        return endOfInput ? limit : NEED_MORE_BYTES;
+                    }
+                    byte b = buffer.get(i);
+                    if (b == delimiter) {
+                        i++;
+                        break;
+                    }
+                    if (isLineBreak(b)) {
+                        return skipLineBreak(i, limit);
+                    }
+                    if (!Character.isWhitespace(CHARS[b & 0xFF])) {
+                        throw new IOException(String.format("(line %d) invalid char between encapsulated token and delimiter", lineNumber));
+                    }
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (true) {
+                    if (i >= limit) {
+                        if (!endOfInput) {
+                            return NEED_MORE_BYTES;
+                        }
+                        addField(start, i, false);
+                        return limit;
+                    }
+                    byte b = buffer.get(i);
+                    if (b == delimiter) {
+                        addField(start, i++, false);
+                        break;
+                    }
+                    if (isLineBreak(b)) {
+                        addField(start, i, false);
+                        return skipLineBreak(i, limit);
+                    }
+                    i++;
+                }
+            }
+        }
+    }
+
+    private int skipLineBreak(int index, int limit) {
+        if (buffer.get(index) == CR) {
+            if (index + 1 >= limit) {
+                return endOfInput ? index + 1 : NEED_MORE_BYTES;
+            }
+            if (buffer.get(index + 1) == LF) {
+                return index + 2;
+            }
+        }
+        return index + 1;
+    }
+
+    private void addField(int start, int end, boolean escaped) {
+        if (fieldCount == fieldStarts.length) {
+            int capacity = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+            fieldEnds = Arrays.copyOf(fieldEnds, capacity);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, capacity);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldEscaped[fieldCount] = escaped;
+        fieldCount++;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= fieldCount) {
+            throw new IllegalArgumentException(String.format("Index %d is out of record with %d values (line %d)",
+                    column, fieldCount, lineNumber - 1));
+        }
+    }
+
+    @Override
+    public int size() {
+        return fieldCount;
+    }
+
+    @Override
+    public String get(int column) {
+        checkColumn(column);
+        int start = fieldStarts[column];
+        int end = fieldEnds[column];
+        if (decoded.length < end - start) {
+            decoded = new char[Math.max(end - start, decoded.length * 2)];
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            decoded[length++] = CHARS[b & 0xFF];
+            if (b == quote && fieldEscaped[column]) {
+                i++; // second quote of escaped pair
+            }
+        }
+        return new String(decoded, 0, length);
+    }
+
+    @Override
+    public CharSequence getChars(int column) {
+        checkColumn(column);
+        if (fieldEscaped[column]) {
+            return get(column);
+        }
+        fieldChars.start = fieldStarts[column];
+        fieldChars.end = fieldEnds[column];
+        return fieldChars;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Decoding view of a field without doubled quotes
+     */
+    private class FieldChars implements CharSequence {
+        private int start;
+        private int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(String.format("Index: %d, length: %d", index, end - start));
+            }
+            return CHARS[buffer.get(start + index) & 0xFF];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[end - start];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = CHARS[buffer.get(start + i) & 0xFF];
+            }
+            return new String(chars);
+        }
+    }
+}
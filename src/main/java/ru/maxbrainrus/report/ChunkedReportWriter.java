@@ -0,0 +1,102 @@
+package ru.maxbrainrus.report;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Writes report in chunks of rows. Chunks are formatted and encoded on the pool while the caller reads next rows,
+ * and are written to the channel in the order they were given. Number of chunks in flight is bounded,
+ * and their formatters with buffers are reused. Without pool chunks are formatted on the caller thread.
+ * <p>
+ * Instance is used by one thread. Chunks not written by {@link #finish()} are cancelled on close,
+ * the channel is not closed.
+ */
+class ChunkedReportWriter implements Closeable {
+    private static final int CHUNKS_PER_THREAD = 2;
+
+    private final WritableByteChannel channel;
+    @Nullable
+    private final ForkJoinPool pool;
+    private final int maxChunksInFlight;
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private final Deque<ReportRowFormatter> freeFormatters = new ArrayDeque<>();
+
+    ChunkedReportWriter(WritableByteChannel channel, @Nullable ForkJoinPool pool) {
+        this.channel = channel;
+        this.pool = pool;
+        this.maxChunksInFlight = pool == null ? 0 : pool.getParallelism() * CHUNKS_PER_THREAD;
+    }
+
+    /**
+     * Pool to format chunks on or null if there is only one processor, so formatting on the caller thread is faster
+     */
+    @Nullable
+    static ForkJoinPool getDefaultPool() {
+        return Runtime.getRuntime().availableProcessors() > 1 ? ForkJoinPool.commonPool() : null;
+    }
+
+    /**
+     * @param rows appends rows of the chunk to the given formatter. It's called on a pool thread
+     */
+    void writeChunk(Consumer<ReportRowFormatter> rows) throws IOException {
+        ReportRowFormatter formatter = freeFormatters.isEmpty() ? new ReportRowFormatter() : freeFormatters.poll();
+        if (pool == null) {
+            rows.accept(formatter);
+            write(formatter.encode());
+            freeFormatters.add(formatter);
+            return;
+        }
+        chunks.add(new Chunk(formatter, pool.submit(() -> {
+            rows.accept(formatter);
+            return formatter.encode();
+        })));
+        while (chunks.size() > maxChunksInFlight) {
+            writeFirstChunk();
+        }
+    }
+
+    private void writeFirstChunk() throws IOException {
+        Chunk chunk = chunks.poll();
+        write(chunk.bytes.join());
+        freeFormatters.add(chunk.formatter);
+    }
+
+    private void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Waits for all chunks and writes them
+     */
+    void finish() throws IOException {
+        while (!chunks.isEmpty()) {
+            writeFirstChunk();
+        }
+    }
+
+    @Override
+    public void close() {
+        chunks.forEach(chunk -> chunk.bytes.cancel(false));
+        chunks.clear();
+    }
+
+    private static class Chunk {
+        private final ReportRowFormatter formatter;
+        private final ForkJoinTask<ByteBuffer> bytes;
+
+        Chunk(ReportRowFormatter formatter, ForkJoinTask<ByteBuffer> bytes) {
+            this.formatter = formatter;
+            this.bytes = bytes;
+        }
+    }
+}
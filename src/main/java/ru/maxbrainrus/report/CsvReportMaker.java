@@ -1,94 +1,124 @@
 package ru.maxbrainrus.report;
 
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
-import ru.maxbrainrus.transaction.AmountWithCcy;
-import ru.maxbrainrus.transaction.Amounts;
 import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TransactionBatch;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Consumer;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
-@Slf4j
+/**
+ * Writes reports in UTF-8 csv, see {@link ReportRowFormatter} for the format.
+ * Rows of report file are formatted in chunks on several cores (see {@link ChunkedReportWriter}).
+ */
 public class CsvReportMaker {
-    private static final String[] REPORT_HEADERS = {
-            "Дата",
-            "Тип транзакции",
-            "Сумма",
-            "Категория",
-            "Описание",
-            "Наличность",
-            "Наличность (куда)"
-    };
-    private static final CSVFormat CSV_FORMAT = CSVFormat.DEFAULT.withHeader(REPORT_HEADERS);
+    static final int CHUNK_ROWS = 4096;
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+    private static final int WRITER_FLUSH_CHARS = 1 << 13;
 
     public static void createReport(List<MoneyTransaction> transactions, String filename) {
-        withOpenCsvToWrite(filename, CSV_FORMAT, csvPrinter -> {
-            transactions.forEach(transaction -> printTransaction(transaction, csvPrinter));
-        });
+        createReport(transactions.stream(), filename);
+    }
 
+    /**
+     * Writes transactions to report as they come from the stream.
+     */
+    public static void createReport(Stream<MoneyTransaction> transactions, String filename) {
+        withOpenReportToWrite(filename, writer -> {
+            Iterator<MoneyTransaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                List<MoneyTransaction> chunk = new ArrayList<>(CHUNK_ROWS);
+                while (chunk.size() < CHUNK_ROWS && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                writer.writeChunk(formatter -> chunk.forEach(formatter::appendRow));
+            }
+        });
     }
 
-    private static void printTransaction(MoneyTransaction transaction, CSVPrinter csvPrinter) {
+    /**
+     * Writes transactions to the writer as they come from the stream. The writer is flushed, but not closed.
+     */
+    public static void createReport(Stream<MoneyTransaction> transactions, Writer writer) {
         try {
-            List<BigDecimal> amounts = getAmounts(transaction);
-            csvPrinter.printRecord(
-                    transaction.getDate(),
-                    transaction.getOperationType().getExportName(),
-                    amounts.get(0),
-                    transaction.getCategory(),
-                    transaction.getDescription(),
-                    transaction.getSourceWallet(),
-                    transaction.getTargetWallet()
-            );
+            ReportRowFormatter formatter = new ReportRowFormatter();
+            formatter.appendHeader();
+            Iterator<MoneyTransaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                formatter.appendRow(iterator.next());
+                if (formatter.length() >= WRITER_FLUSH_CHARS) {
+                    formatter.writeTo(writer);
+                }
+            }
+            formatter.writeTo(writer);
+            writer.flush();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static List<BigDecimal> getAmounts(MoneyTransaction transaction) {
-        List<BigDecimal> result = new ArrayList<>(2);
-        Amounts amounts = transaction.getAmounts();
-        BigDecimal sourceAmount = amounts.getSourceAmount().getAmount();
-        BigDecimal targetAmount = Optional.ofNullable(amounts.getTargetAmount()).map(AmountWithCcy::getAmount).orElse(null);
-        if (!isZeroOrNull(sourceAmount) && !isZeroOrNull(targetAmount)) {
-            result.add(sourceAmount);
-            result.add(targetAmount);
-        } else if (!isZeroOrNull(sourceAmount)) {
-            result.add(sourceAmount);
-            result.add(null);
-        } else if (!isZeroOrNull(targetAmount)) {
-            result.add(targetAmount);
-            result.add(null);
-        } else {
-            log.error("Transaction with no amount in report. Transaction: {}", transaction);
-            result.add(null);
-            result.add(null);
+    /**
+     * Writes rows of the batch without creating transaction objects.
+     */
+    public static void createReport(TransactionBatch batch, String filename) {
+        withOpenReportToWrite(filename, writer -> {
+            for (int from = 0; from < batch.size(); from += CHUNK_ROWS) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(from + CHUNK_ROWS, batch.size());
+                writer.writeChunk(formatter -> {
+                    for (int row = chunkStart; row < chunkEnd; row++) {
+                        formatter.appendRow(batch, row);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Report with ".gz" file name is compressed with gzip as it's written
+     */
+    static WritableByteChannel openReport(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        if (!filename.toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX)) {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+        OutputStream out = Files.newOutputStream(path);
+        try {
+            return Channels.newChannel(new GZIPOutputStream(out, GZIP_BUFFER_SIZE));
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
         }
-        return result;
     }
 
-    private static void withOpenCsvToWrite(String filename, CSVFormat format, Consumer<CSVPrinter> consumer) {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filename))) {
-            try (CSVPrinter csvPrinter = new CSVPrinter(writer, format)) {
-                consumer.accept(csvPrinter);
-                csvPrinter.flush();
-            }
+    private static void withOpenReportToWrite(String filename, ReportBody body) {
+        try (WritableByteChannel channel = openReport(filename);
+             ChunkedReportWriter writer = new ChunkedReportWriter(channel, ChunkedReportWriter.getDefaultPool())) {
+            writer.writeChunk(ReportRowFormatter::appendHeader);
+            body.write(writer);
+            writer.finish();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static boolean isZeroOrNull(BigDecimal amount) {
-        return amount == null || amount.signum() == 0;
+    @FunctionalInterface
+    private interface ReportBody {
+        void write(ChunkedReportWriter writer) throws IOException;
     }
-
 }
@@ -0,0 +1,73 @@
+package ru.maxbrainrus.report;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash index of long keys. Each distinct key gets a dense index in order of its first addition,
+ * so values of keys are kept in primitive arrays by the caller without boxing.
+ */
+class LongKeyIndex {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    // Slot of hash table -> index of key, table is kept at most half full
+    private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+    private int size;
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static int slotOf(long key, int[] slots) {
+        return (int) ((key * GOLDEN_RATIO) >>> (Long.SIZE - Integer.numberOfTrailingZeros(slots.length)));
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @return index of the key, new keys are added with the next index
+     */
+    int add(long key) {
+        int mask = slots.length - 1;
+        int slot = slotOf(key, slots);
+        while (slots[slot] != EMPTY) {
+            if (keys[slots[slot]] == key) {
+                return slots[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        slots[slot] = size;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+        int[] newSlots = newSlots(slots.length * 2);
+        int mask = newSlots.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = slotOf(keys[index], newSlots);
+            while (newSlots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = index;
+        }
+        slots = newSlots;
+    }
+}
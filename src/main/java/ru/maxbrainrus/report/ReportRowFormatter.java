@@ -0,0 +1,303 @@
+package ru.maxbrainrus.report;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.maxbrainrus.transaction.AmountWithCcy;
+import ru.maxbrainrus.transaction.Amounts;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.OperationType;
+import ru.maxbrainrus.transaction.TransactionBatch;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Formats report rows into reusable char and byte buffers. Output is the same as of CSVPrinter
+ * with {@code CSVFormat.DEFAULT} (minimal quoting, CRLF record separator), but values are written
+ * without boxing and without {@code toString} of dates and amounts.
+ * <p>
+ * Only text columns are checked for quoting: date and amount contain only digits, '-' and '.', which never need it,
+ * and export names of operation types are quoted once.
+ * Instance is not thread-safe.
+ */
+@Slf4j
+class ReportRowFormatter {
+    static final String[] REPORT_HEADERS = {
+            "Дата",
+            "Тип транзакции",
+            "Сумма",
+            "Категория",
+            "Описание",
+            "Наличность",
+            "Наличность (куда)"
+    };
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final char COMMENT = '#';
+    private static final String RECORD_SEPARATOR = "\r\n";
+    private static final String[] OPERATION_TYPE_VALUES = quoteOperationTypes();
+    private static final int INITIAL_CAPACITY = 1 << 13;
+    // Surrogate pair of 2 chars is 4 bytes, other chars are up to 3 bytes
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private char[] chars;
+    private int length;
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+    ReportRowFormatter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private ReportRowFormatter(int capacity) {
+        this.chars = new char[capacity];
+    }
+
+    private static String[] quoteOperationTypes() {
+        OperationType[] types = OperationType.values();
+        String[] result = new String[types.length];
+        for (OperationType type : types) {
+            ReportRowFormatter formatter = new ReportRowFormatter(type.getExportName().length() * 2 + 2);
+            formatter.appendText(type.getExportName(), false);
+            result[type.ordinal()] = new String(formatter.chars, 0, formatter.length);
+        }
+        return result;
+    }
+
+    private static long getMinorUnits(@Nullable AmountWithCcy amount) {
+        return amount == null ? 0 : amount.getMinorUnits();
+    }
+
+    private static int getScale(@Nullable AmountWithCcy amount) {
+        return amount == null ? 0 : amount.getScale();
+    }
+
+    int length() {
+        return length;
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + additional));
+        }
+    }
+
+    private void append(char c) {
+        ensureCapacity(1);
+        chars[length++] = c;
+    }
+
+    private void append(String value) {
+        ensureCapacity(value.length());
+        value.getChars(0, value.length(), chars, length);
+        length += value.length();
+    }
+
+    void appendHeader() {
+        for (int i = 0; i < REPORT_HEADERS.length; i++) {
+            if (i > 0) {
+                append(DELIMITER);
+            }
+            appendText(REPORT_HEADERS[i], i == 0);
+        }
+        append(RECORD_SEPARATOR);
+    }
+
+    void appendRow(MoneyTransaction transaction) {
+        Amounts amounts = transaction.getAmounts();
+        long source = getMinorUnits(amounts.getSourceAmount());
+        long target = getMinorUnits(amounts.getTargetAmount());
+        if (source == 0 && target == 0) {
+            log.error("Transaction with no amount in report. Transaction: {}", transaction);
+        }
+        int scale = source != 0 ? getScale(amounts.getSourceAmount()) : getScale(amounts.getTargetAmount());
+        appendRow(transaction.getDate(), transaction.getOperationType(), source != 0 ? source : target, scale,
+                transaction.getCategory(), transaction.getDescription(), transaction.getSourceWallet(), transaction.getTargetWallet());
+    }
+
+    void appendRow(TransactionBatch batch, int row) {
+        long source = batch.getSourceMinorUnits(row);
+        long target = batch.getTargetMinorUnits(row);
+        if (source == 0 && target == 0) {
+            log.error("Transaction with no amount in report. Transaction: {}", batch.get(row));
+        }
+        int scale = source != 0 ? batch.getSourceScale(row) : batch.getTargetScale(row);
+        appendRow(batch.getDate(row), batch.getOperationType(row), source != 0 ? source : target, scale,
+                batch.getCategory(row), batch.getDescription(row), batch.getSourceWallet(row), batch.getTargetWallet(row));
+    }
+
+    private void appendRow(LocalDate date, OperationType operationType, long minorUnits, int scale,
+                           @Nullable String category, @Nullable String description,
+                           @Nullable String sourceWallet, @Nullable String targetWallet) {
+        appendDate(date);
+        append(DELIMITER);
+        append(OPERATION_TYPE_VALUES[operationType.ordinal()]);
+        append(DELIMITER);
+        appendAmount(minorUnits, scale);
+        append(DELIMITER);
+        appendText(category, false);
+        append(DELIMITER);
+        appendText(description, false);
+        append(DELIMITER);
+        appendText(sourceWallet, false);
+        append(DELIMITER);
+        appendText(targetWallet, false);
+        append(RECORD_SEPARATOR);
+    }
+
+    private void appendDigits(long value, int digits) {
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private void appendNumber(long value) {
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        appendDigits(value, digits);
+    }
+
+    /**
+     * Same as {@link LocalDate#toString()}
+     */
+    private void appendDate(LocalDate date) {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            append(date.toString());
+            return;
+        }
+        appendDigits(year, 4);
+        append('-');
+        appendDigits(date.getMonthValue(), 2);
+        append('-');
+        appendDigits(date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Same as {@link BigDecimal#toString()} of {@link AmountWithCcy#toBigDecimal(long, int)}.
+     * Zero is absent amount and is written as empty value.
+     */
+    private void appendAmount(long minorUnits, int scale) {
+        if (minorUnits == 0) {
+            return;
+        }
+        if (minorUnits == Long.MIN_VALUE || scale < 0) {
+            append(AmountWithCcy.toBigDecimal(minorUnits, scale).toString());
+            return;
+        }
+        if (minorUnits < 0) {
+            append('-');
+            minorUnits = -minorUnits;
+        }
+        int kopecks = (int) (minorUnits % 100);
+        // Digits of kopecks are not dropped even if scale is less
+        int fractionDigits = kopecks == 0 ? scale : Math.max(scale, kopecks % 10 == 0 ? 1 : 2);
+        appendNumber(minorUnits / 100);
+        if (fractionDigits == 0) {
+            return;
+        }
+        append('.');
+        if (fractionDigits == 1) {
+            append((char) ('0' + kopecks / 10));
+            return;
+        }
+        appendDigits(kopecks, 2);
+        for (int i = AmountWithCcy.MINOR_UNITS_SCALE; i < fractionDigits; i++) {
+            append('0');
+        }
+    }
+
+    /**
+     * Writes value quoted as CSVPrinter does with minimal quote mode. Null is written as empty value, which is never quoted.
+     */
+    private void appendText(@Nullable String value, boolean firstInRecord) {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value, firstInRecord)) {
+            append(value);
+            return;
+        }
+        ensureCapacity(value.length() * 2 + 2);
+        chars[length++] = QUOTE;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                chars[length++] = QUOTE;
+            }
+            chars[length++] = c;
+        }
+        chars[length++] = QUOTE;
+    }
+
+    private static boolean needsQuotes(String value, boolean firstInRecord) {
+        int end = value.length();
+        if (end == 0) {
+            // Empty first value is quoted, so the record is not an empty line
+            return firstInRecord;
+        }
+        if (value.charAt(0) <= COMMENT) {
+            return true;
+        }
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == QUOTE || c == DELIMITER) {
+                return true;
+            }
+        }
+        return value.charAt(end - 1) <= ' ';
+    }
+
+    /**
+     * Writes formatted chars to the writer and clears them
+     */
+    void writeTo(Writer writer) throws IOException {
+        writer.write(chars, 0, length);
+        clear();
+    }
+
+    /**
+     * Encodes formatted chars to UTF-8 and clears them
+     *
+     * @return reused buffer with bytes of formatted rows, valid until the next call
+     */
+    ByteBuffer encode() throws CharacterCodingException {
+        if (bytes.capacity() < length * MAX_BYTES_PER_CHAR) {
+            bytes = ByteBuffer.allocate(length * MAX_BYTES_PER_CHAR);
+        }
+        // Called as Buffer methods, ByteBuffer overrides of them exist only since Java 9
+        ((Buffer) bytes).clear();
+        encoder.reset();
+        CoderResult result = encoder.encode(CharBuffer.wrap(chars, 0, length), bytes, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = encoder.flush(bytes);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        ((Buffer) bytes).flip();
+        clear();
+        return bytes;
+    }
+}
@@ -0,0 +1,223 @@
+package ru.maxbrainrus.report;
+
+import ru.maxbrainrus.transaction.AmountWithCcy;
+import ru.maxbrainrus.transaction.Amounts;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.OperationType;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Sums transactions by month, operation type, category, wallet and currency in one pass, so transactions
+ * are not kept in memory. Memory is proportional to the number of distinct rows of summary.
+ * <p>
+ * Category, wallet and currency are replaced by ids, and dimensions of a row are packed into long keys
+ * of {@link LongKeyIndex}, so a transaction costs three string lookups and four primitive ones.
+ * Totals and counts are long arrays, totals are in minor units. Rollups by month, category, wallet
+ * and operation type are summed from the same totals when rows are requested.
+ * <p>
+ * Amounts of expenses and income are both positive and amounts of different currencies can't be added,
+ * so every row, rollups too, is split by operation type and currency (see {@link SummaryGrouping}).
+ * <p>
+ * Wallet of a row is the source wallet, or the target wallet if there is no source one (income).
+ * Amount is the same as in the detailed report. Instance is not thread-safe.
+ */
+public class SummaryAggregator {
+    private static final int OPERATION_TYPE_BITS = 2;
+    private static final long OPERATION_TYPE_MASK = (1L << OPERATION_TYPE_BITS) - 1;
+    private static final long LOW_INT_MASK = 0xFFFFFFFFL;
+    private static final Comparator<SummaryRow> ROW_ORDER = Comparator.comparing(SummaryRow::getMonth, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SummaryRow::getOperationType)
+            .thenComparing(SummaryRow::getCategory, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SummaryRow::getWallet, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SummaryRow::getCurrency, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    static {
+        if (OperationType.values().length > 1 << OPERATION_TYPE_BITS) {
+            throw new IllegalStateException("Operation types don't fit into " + OPERATION_TYPE_BITS + " bits of summary key");
+        }
+    }
+
+    private final Map<String, Integer> textIds = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();
+    // Currency id and operation type: amounts of different kinds are never added
+    private final LongKeyIndex kinds = new LongKeyIndex();
+    // Category id and wallet id
+    private final LongKeyIndex groups = new LongKeyIndex();
+    // Group index and kind index
+    private final LongKeyIndex cells = new LongKeyIndex();
+    // Cell index and month
+    private final LongKeyIndex rows = new LongKeyIndex();
+    private long[] totals = new long[16];
+    private long[] counts = new long[16];
+
+    public SummaryAggregator() {
+        // Id of null
+        texts.add(null);
+    }
+
+    private static int toMonthIndex(LocalDate date) {
+        return Math.toIntExact(date.getYear() * 12L + date.getMonthValue() - 1);
+    }
+
+    private static YearMonth fromMonthIndex(int monthIndex) {
+        return YearMonth.of(Math.floorDiv(monthIndex, 12), Math.floorMod(monthIndex, 12) + 1);
+    }
+
+    private static long pack(long high, long low) {
+        return high << Integer.SIZE | (low & LOW_INT_MASK);
+    }
+
+    /**
+     * @return source amount, or target amount if there is no source one (income)
+     */
+    @Nullable
+    private static AmountWithCcy getAmount(Amounts amounts) {
+        AmountWithCcy source = amounts.getSourceAmount();
+        return source != null && source.getMinorUnits() != 0 ? source : amounts.getTargetAmount();
+    }
+
+    private int getTextId(@Nullable String text) {
+        if (text == null) {
+            return 0;
+        }
+        Integer id = textIds.get(text);
+        if (id == null) {
+            id = texts.size();
+            textIds.put(text, id);
+            texts.add(text);
+        }
+        return id;
+    }
+
+    /**
+     * Adds transactions to summary as they pass the stream
+     */
+    public Stream<MoneyTransaction> aggregate(Stream<MoneyTransaction> transactions) {
+        return transactions.peek(this::add);
+    }
+
+    public void add(MoneyTransaction transaction) {
+        AmountWithCcy amount = getAmount(transaction.getAmounts());
+        long minorUnits = amount == null ? 0 : amount.getMinorUnits();
+        String wallet = transaction.getSourceWallet() != null ? transaction.getSourceWallet() : transaction.getTargetWallet();
+        int kind = kinds.add((long) getTextId(amount == null ? null : amount.getCcy()) << OPERATION_TYPE_BITS
+                | transaction.getOperationType().ordinal());
+        int group = groups.add(pack(getTextId(transaction.getCategory()), getTextId(wallet)));
+        int cell = cells.add(pack(group, kind));
+        int row = rows.add(pack(cell, toMonthIndex(transaction.getDate())));
+        if (row == totals.length) {
+            totals = Arrays.copyOf(totals, row * 2);
+            counts = Arrays.copyOf(counts, row * 2);
+        }
+        totals[row] = Math.addExact(totals[row], minorUnits);
+        counts[row]++;
+    }
+
+    /**
+     * @return number of detailed summary rows
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    private long getCellKey(int row) {
+        return cells.getKey((int) (rows.getKey(row) >>> Integer.SIZE));
+    }
+
+    private long getGroupKey(int row) {
+        return groups.getKey((int) (getCellKey(row) >>> Integer.SIZE));
+    }
+
+    private long getKindKey(int row) {
+        return kinds.getKey((int) getCellKey(row));
+    }
+
+    private int getMonthIndex(int row) {
+        return (int) rows.getKey(row);
+    }
+
+    /**
+     * @return rollup of the detailed row: the row itself for {@link SummaryGrouping#DETAILED},
+     * otherwise the dimension of grouping with kind of the row
+     */
+    private long getRollupKey(int row, SummaryGrouping grouping) {
+        int kind = (int) getCellKey(row);
+        switch (grouping) {
+            case DETAILED:
+                return row;
+            case MONTH:
+                return pack(getMonthIndex(row), kind);
+            case CATEGORY:
+                return pack(getGroupKey(row) >>> Integer.SIZE, kind);
+            case WALLET:
+                return pack(getGroupKey(row) & LOW_INT_MASK, kind);
+            case OPERATION_TYPE:
+                return kind;
+            default:
+                throw new IllegalArgumentException("Unknown summary grouping " + grouping);
+        }
+    }
+
+    /**
+     * @param row any detailed row of the rollup, dimensions of grouping are taken from it
+     */
+    private SummaryRow createRow(SummaryGrouping grouping, int row, long total, long count) {
+        long groupKey = getGroupKey(row);
+        long kindKey = getKindKey(row);
+        return SummaryRow.builder()
+                .grouping(grouping)
+                .month(grouping.includes(SummaryGrouping.MONTH) ? fromMonthIndex(getMonthIndex(row)) : null)
+                .operationType(OperationType.values()[(int) (kindKey & OPERATION_TYPE_MASK)])
+                .category(grouping.includes(SummaryGrouping.CATEGORY) ? texts.get((int) (groupKey >>> Integer.SIZE)) : null)
+                .wallet(grouping.includes(SummaryGrouping.WALLET) ? texts.get((int) (groupKey & LOW_INT_MASK)) : null)
+                .currency(texts.get((int) (kindKey >>> OPERATION_TYPE_BITS)))
+                .totalMinorUnits(total)
+                .count(count)
+                .build();
+    }
+
+    /**
+     * @return rows of the grouping ordered by month, operation type, category, wallet and currency
+     */
+    public List<SummaryRow> getRows(SummaryGrouping grouping) {
+        LongKeyIndex rollups = new LongKeyIndex();
+        int[] firstRows = new int[rows.size()];
+        long[] rollupTotals = new long[rows.size()];
+        long[] rollupCounts = new long[rows.size()];
+        for (int row = 0; row < rows.size(); row++) {
+            int rollup = rollups.add(getRollupKey(row, grouping));
+            if (rollupCounts[rollup] == 0) {
+                firstRows[rollup] = row;
+            }
+            rollupTotals[rollup] = Math.addExact(rollupTotals[rollup], totals[row]);
+            rollupCounts[rollup] += counts[row];
+        }
+        List<SummaryRow> result = new ArrayList<>(rollups.size());
+        for (int rollup = 0; rollup < rollups.size(); rollup++) {
+            result.add(createRow(grouping, firstRows[rollup], rollupTotals[rollup], rollupCounts[rollup]));
+        }
+        result.sort(ROW_ORDER);
+        return result;
+    }
+
+    /**
+     * @return detailed rows followed by rollups, in order of {@link SummaryGrouping}
+     */
+    public List<SummaryRow> getRows() {
+        List<SummaryRow> result = new ArrayList<>();
+        for (SummaryGrouping grouping : SummaryGrouping.values()) {
+            result.addAll(getRows(grouping));
+        }
+        return result;
+    }
+}
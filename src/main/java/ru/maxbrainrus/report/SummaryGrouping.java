@@ -0,0 +1,22 @@
+package ru.maxbrainrus.report;
+
+/**
+ * Dimensions of a summary row. Every row is split by operation type and currency, because amounts of expenses
+ * and income are both positive and amounts of different currencies can't be added. Detailed rows are also split
+ * by month, category and wallet, rollup rows by one of them or, for {@link #OPERATION_TYPE}, by none.
+ */
+public enum SummaryGrouping {
+    DETAILED,
+    MONTH,
+    CATEGORY,
+    WALLET,
+    OPERATION_TYPE,
+    ;
+
+    /**
+     * @return true if rows of this grouping are split by the dimension
+     */
+    public boolean includes(SummaryGrouping dimension) {
+        return this == DETAILED || this == dimension || dimension == OPERATION_TYPE;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.maxbrainrus.report;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import ru.maxbrainrus.transaction.AmountWithCcy;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes totals of {@link SummaryAggregator} in UTF-8 csv, one row per month, operation type, category, wallet
+ * and currency, followed by rollups (see {@link SummaryGrouping}). Rolled up dimensions of rollup rows are {@link #ALL}.
+ * Report with ".gz" file name is compressed with gzip.
+ */
+public class SummaryReportMaker {
+    public static final String ALL = "Все";
+
+    static final String[] SUMMARY_HEADERS = {
+            "Месяц",
+            "Тип транзакции",
+            "Категория",
+            "Наличность",
+            "Сумма",
+            "Валюта",
+            "Количество"
+    };
+
+    public static void createReport(SummaryAggregator aggregator, String filename) {
+        try (Writer writer = Channels.newWriter(CsvReportMaker.openReport(filename), StandardCharsets.UTF_8.newEncoder(), -1);
+             CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(SUMMARY_HEADERS))) {
+            for (SummaryRow row : aggregator.getRows()) {
+                SummaryGrouping grouping = row.getGrouping();
+                printer.printRecord(
+                        grouping.includes(SummaryGrouping.MONTH) ? row.getMonth() : ALL,
+                        row.getOperationType().getExportName(),
+                        grouping.includes(SummaryGrouping.CATEGORY) ? row.getCategory() : ALL,
+                        grouping.includes(SummaryGrouping.WALLET) ? row.getWallet() : ALL,
+                        BigDecimal.valueOf(row.getTotalMinorUnits(), AmountWithCcy.MINOR_UNITS_SCALE), row.getCurrency(), row.getCount());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
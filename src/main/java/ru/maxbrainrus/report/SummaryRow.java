@@ -0,0 +1,28 @@
+package ru.maxbrainrus.report;
+
+import lombok.Builder;
+import lombok.Value;
+import ru.maxbrainrus.transaction.OperationType;
+
+import java.time.YearMonth;
+
+/**
+ * Total of transactions with the same month, operation type, category, wallet and currency,
+ * or with the same operation type, currency and one of other dimensions for rollup rows.
+ * Dimensions not included in grouping are null
+ */
+@Value
+@Builder
+public class SummaryRow {
+    SummaryGrouping grouping;
+    YearMonth month;
+    OperationType operationType;
+    String category;
+    String wallet;
+    String currency;
+    /**
+     * Sum of report amounts in minor units
+     */
+    long totalMinorUnits;
+    long count;
+}
@@ -0,0 +1,234 @@
+package ru.maxbrainrus.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import ru.maxbrainrus.config.KeyWordMatcher;
+import ru.maxbrainrus.parser.ConfigFiller;
+import ru.maxbrainrus.parser.ReportGenerator;
+import ru.maxbrainrus.parser.ReportOptions;
+import ru.maxbrainrus.parser.StringPool;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts statements over HTTP.
+ * <p>
+ * {@code POST /report?format=RAIF&wallet=...&cutDate=dd-MM-yyyy} with statement as request body responds with report.
+ * Parameters are optional and default to the options the server is created with. Report is streamed as statement is parsed.
+ * If statement fails before the first bytes of report are sent the response is "422 Unprocessable Entity" with the error,
+ * later failure drops the connection, so the client never gets a truncated report as a complete one.
+ * <p>
+ * {@code GET /metrics} responds with request count and latency.
+ * <p>
+ * All requests share one {@link ConfigFiller}: compiled keyword matcher, string pool and keyword lookup cache,
+ * so each request is converted warm, only parsers are created per request. Each request is handled by a virtual thread
+ * if runtime supports them (Java 21+), otherwise by a thread of a cached pool. Incremental mode and deduplication are not supported by server.
+ */
+@Slf4j
+public class ReportServer implements Closeable {
+    public static final String REPORT_PATH = "/report";
+    public static final String METRICS_PATH = "/metrics";
+    public static final String DATE_PATTERN = "dd-MM-yyyy";
+
+    private static final int STATUS_OK = 200;
+    private static final int STATUS_BAD_REQUEST = 400;
+    private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+    private static final int STATUS_UNPROCESSABLE_ENTITY = 422;
+
+    private final ConfigFiller configFiller;
+    private final ReportOptions defaultOptions;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final ExecutorService executor = createExecutor();
+    private final HttpServer httpServer;
+
+    public ReportServer(KeyWordMatcher keyWordMatcher, ReportOptions defaultOptions, InetSocketAddress address) throws IOException {
+        this.configFiller = new ConfigFiller(keyWordMatcher, new StringPool());
+        this.defaultOptions = defaultOptions;
+        this.httpServer = HttpServer.create(address, 0);
+        httpServer.createContext(REPORT_PATH, this::handleReport);
+        httpServer.createContext(METRICS_PATH, this::handleMetrics);
+        httpServer.setExecutor(executor);
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) method.invoke(null);
+            log.info("Requests are handled by virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            log.info("Virtual threads are not supported by runtime, requests are handled by thread pool");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> result = new HashMap<>();
+        if (query == null) {
+            return result;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                result.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return result;
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public void start() {
+        httpServer.start();
+        log.info("Report server is listening on {}", getAddress());
+    }
+
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ConfigFiller getConfigFiller() {
+        return configFiller;
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdown();
+    }
+
+    private ReportOptions parseOptions(Map<String, String> parameters) {
+        String format = parameters.get("format");
+        String wallet = parameters.get("wallet");
+        String cutDate = parameters.get("cutDate");
+        return ReportOptions.builder()
+                .bankFormatType(format == null ? defaultOptions.getBankFormatType() : BankFormatType.valueOf(format))
+                .sourceWallet(wallet == null ? defaultOptions.getSourceWallet() : wallet)
+                .cutDate(cutDate == null ? defaultOptions.getCutDate() : LocalDate.parse(cutDate, DateTimeFormatter.ofPattern(DATE_PATTERN)))
+                .readMode(defaultOptions.getReadMode())
+                .build();
+    }
+
+    private void handleReport(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status = STATUS_OK;
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                status = STATUS_METHOD_NOT_ALLOWED;
+                sendText(exchange, status, "Statement must be posted\n");
+                return;
+            }
+            ReportOptions options;
+            try {
+                options = parseOptions(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                status = STATUS_BAD_REQUEST;
+                sendText(exchange, status, e.getMessage() + "\n");
+                return;
+            }
+            ReportStream reportStream = new ReportStream(exchange);
+            Writer report = new BufferedWriter(new OutputStreamWriter(reportStream, StandardCharsets.UTF_8));
+            try {
+                new ReportGenerator(configFiller, options).makeReport(exchange.getRequestBody(), report);
+                report.close();
+            } catch (Exception e) {
+                // Checked exceptions are thrown by generator too, e.g. IOException of request body
+                log.error("Statement of wallet {} is not converted", options.getSourceWallet(), e);
+                status = STATUS_UNPROCESSABLE_ENTITY;
+                if (reportStream.isStarted()) {
+                    // Exception makes the server close connection without finishing the response
+                    throw e;
+                }
+                sendText(exchange, status, e + "\n");
+            }
+        } finally {
+            long nanos = System.nanoTime() - start;
+            metrics.record(nanos, status != STATUS_OK);
+            log.info("{} {} {} in {} ms", exchange.getRequestMethod(), exchange.getRequestURI(), status, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        sendText(exchange, STATUS_OK, metrics.toString());
+    }
+
+    /**
+     * Response body which sends response headers on the first write, so until then an error can be reported by status
+     */
+    private static class ReportStream extends OutputStream {
+        private final HttpExchange exchange;
+        private OutputStream out;
+
+        ReportStream(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        boolean isStarted() {
+            return out != null;
+        }
+
+        private OutputStream start() throws IOException {
+            if (out == null) {
+                exchange.getResponseHeaders().set("Content-Type", "text/csv; charset=utf-8");
+                // Zero length means chunked response of unknown length
+                exchange.sendResponseHeaders(STATUS_OK, 0);
+                out = exchange.getResponseBody();
+            }
+            return out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            start().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            start().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            start().close();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.maxbrainrus.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count and latency of handled requests.
+ * Latencies are counted in power of two millisecond buckets, so percentiles are upper bounds accurate to 2x
+ * and recording is lock-free and allocation free.
+ */
+public class RequestMetrics {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    // Bucket i counts requests with latency in [2^(i-1), 2^i) ms, bucket 0 is less than 1 ms
+    private final LongAdder[] latencyBuckets = new LongAdder[BUCKETS];
+
+    public RequestMetrics() {
+        for (int i = 0; i < BUCKETS; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    private static int getBucket(long millis) {
+        return Math.min(64 - Long.numberOfLeadingZeros(millis), BUCKETS - 1);
+    }
+
+    public void record(long nanos, boolean failed) {
+        requests.increment();
+        if (failed) {
+            failures.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        latencyBuckets[getBucket(TimeUnit.NANOSECONDS.toMillis(nanos))].increment();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public double getMeanMillis() {
+        long count = getRequests();
+        return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * @param quantile value in (0, 1], e.g. 0.99
+     * @return upper bound of latency of the quantile of requests in milliseconds
+     */
+    public long getPercentileMillis(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencyBuckets[i].sum();
+            total += counts[i];
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests %d\nfailures %d\nlatency_mean_ms %.3f\nlatency_p50_ms %d\nlatency_p99_ms %d\nlatency_max_ms %.3f\n",
+                getRequests(), getFailures(), getMeanMillis(), getPercentileMillis(0.5), getPercentileMillis(0.99), getMaxMillis());
+    }
+}
@@ -8,6 +8,41 @@ import java.math.BigDecimal;
 @Value
 @Builder
 public class AmountWithCcy {
-    BigDecimal amount;
+    public static final int MINOR_UNITS_SCALE = 2;
+
+    /**
+     * Amount in minor units (kopecks for RUB)
+     */
+    long minorUnits;
     String ccy;
+    /**
+     * Digits after point the amount is written with in statement, so report shows it the same way ("100", "1234.5")
+     */
+    @Builder.Default
+    int scale = MINOR_UNITS_SCALE;
+
+    /**
+     * @return amount with the given digits after point or more if minor units need them
+     */
+    public static BigDecimal toBigDecimal(long minorUnits, int scale) {
+        BigDecimal amount = BigDecimal.valueOf(minorUnits, MINOR_UNITS_SCALE);
+        return amount.setScale(Math.max(scale, amount.stripTrailingZeros().scale()));
+    }
+
+    /**
+     * Amount converted to BigDecimal with {@link #getScale()} digits after point. Use it only for output.
+     */
+    public BigDecimal getAmount() {
+        return toBigDecimal(minorUnits, scale);
+    }
+
+    public static class AmountWithCcyBuilder {
+        /**
+         * @throws ArithmeticException if amount has nonzero digits after {@link #MINOR_UNITS_SCALE} or is too big
+         */
+        public AmountWithCcyBuilder amount(BigDecimal amount) {
+            return minorUnits(amount.movePointRight(MINOR_UNITS_SCALE).longValueExact())
+                    .scale(Math.max(amount.scale(), 0));
+        }
+    }
 }
@@ -0,0 +1,307 @@
+package ru.maxbrainrus.transaction;
+
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Column oriented storage of many transactions: one primitive array per field instead of an object graph per row.
+ * <p>
+ * Dates are stored as epoch days, amounts as minor units, operation types as ordinals
+ * and all strings as codes of one {@link StringDictionary}, so a row takes less than 50 bytes of heap.
+ * Rows are filled by {@link #add(MoneyTransaction)}, enriched in place by setters and read back
+ * either by column getters or as {@link MoneyTransaction} views created on demand.
+ * <p>
+ * Not thread safe.
+ */
+public class TransactionBatch {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+    // Marks missing amount or operation date
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private final StringDictionary dictionary = new StringDictionary();
+
+    private int size;
+    private int[] epochDays;
+    private byte[] operationTypes;
+    private long[] sourceMinorUnits;
+    private byte[] sourceScales;
+    private int[] sourceCcyCodes;
+    private long[] targetMinorUnits;
+    private byte[] targetScales;
+    private int[] targetCcyCodes;
+    private int[] descriptionCodes;
+    private int[] categoryCodes;
+    private int[] sourceWalletCodes;
+    private int[] targetWalletCodes;
+    // Parsers don't fill operation date, so the column is created only when first value comes
+    @Nullable
+    private long[] operationDateSeconds;
+
+    public TransactionBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TransactionBatch(int capacity) {
+        epochDays = new int[capacity];
+        operationTypes = new byte[capacity];
+        sourceMinorUnits = new long[capacity];
+        sourceScales = new byte[capacity];
+        sourceCcyCodes = new int[capacity];
+        targetMinorUnits = new long[capacity];
+        targetScales = new byte[capacity];
+        targetCcyCodes = new int[capacity];
+        descriptionCodes = new int[capacity];
+        categoryCodes = new int[capacity];
+        sourceWalletCodes = new int[capacity];
+        targetWalletCodes = new int[capacity];
+    }
+
+    public static TransactionBatch of(Stream<MoneyTransaction> transactions) {
+        TransactionBatch batch = new TransactionBatch();
+        transactions.forEachOrdered(batch::add);
+        return batch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return index of added row
+     */
+    public int add(MoneyTransaction transaction) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        epochDays[row] = Math.toIntExact(transaction.getDate().toEpochDay());
+        operationTypes[row] = (byte) transaction.getOperationType().ordinal();
+        Amounts amounts = transaction.getAmounts();
+        setAmount(amounts == null ? null : amounts.getSourceAmount(), row, sourceMinorUnits, sourceScales, sourceCcyCodes);
+        setAmount(amounts == null ? null : amounts.getTargetAmount(), row, targetMinorUnits, targetScales, targetCcyCodes);
+        descriptionCodes[row] = dictionary.encode(transaction.getDescription());
+        categoryCodes[row] = dictionary.encode(transaction.getCategory());
+        sourceWalletCodes[row] = dictionary.encode(transaction.getSourceWallet());
+        targetWalletCodes[row] = dictionary.encode(transaction.getTargetWallet());
+        LocalDateTime operationDate = transaction.getOperationDate();
+        if (operationDate != null) {
+            if (operationDateSeconds == null) {
+                operationDateSeconds = new long[epochDays.length];
+                Arrays.fill(operationDateSeconds, NO_VALUE);
+            }
+            operationDateSeconds[row] = operationDate.toEpochSecond(ZoneOffset.UTC);
+        }
+        return row;
+    }
+
+    private void setAmount(@Nullable AmountWithCcy amount, int row, long[] minorUnits, byte[] scales, int[] ccyCodes) {
+        minorUnits[row] = amount == null ? NO_VALUE : amount.getMinorUnits();
+        scales[row] = amount == null ? 0 : toByteExact(amount.getScale());
+        ccyCodes[row] = amount == null ? StringDictionary.NULL_CODE : dictionary.encode(amount.getCcy());
+    }
+
+    private static byte toByteExact(int value) {
+        if (value != (byte) value) {
+            throw new ArithmeticException(String.format("Scale of amount is too big: %d", value));
+        }
+        return (byte) value;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= epochDays.length) {
+            return;
+        }
+        int capacity = Math.max(required, epochDays.length + (epochDays.length >> 1) + 1);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        operationTypes = Arrays.copyOf(operationTypes, capacity);
+        sourceMinorUnits = Arrays.copyOf(sourceMinorUnits, capacity);
+        sourceScales = Arrays.copyOf(sourceScales, capacity);
+        sourceCcyCodes = Arrays.copyOf(sourceCcyCodes, capacity);
+        targetMinorUnits = Arrays.copyOf(targetMinorUnits, capacity);
+        targetScales = Arrays.copyOf(targetScales, capacity);
+        targetCcyCodes = Arrays.copyOf(targetCcyCodes, capacity);
+        descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        sourceWalletCodes = Arrays.copyOf(sourceWalletCodes, capacity);
+        targetWalletCodes = Arrays.copyOf(targetWalletCodes, capacity);
+        if (operationDateSeconds != null) {
+            int oldCapacity = operationDateSeconds.length;
+            operationDateSeconds = Arrays.copyOf(operationDateSeconds, capacity);
+            Arrays.fill(operationDateSeconds, oldCapacity, capacity, NO_VALUE);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(String.format("Row: %d, size: %d", row, size));
+        }
+    }
+
+    public int getEpochDay(int row) {
+        checkRow(row);
+        return epochDays[row];
+    }
+
+    public LocalDate getDate(int row) {
+        return LocalDate.ofEpochDay(getEpochDay(row));
+    }
+
+    public OperationType getOperationType(int row) {
+        checkRow(row);
+        return OPERATION_TYPES[operationTypes[row]];
+    }
+
+    public boolean hasSourceAmount(int row) {
+        checkRow(row);
+        return sourceMinorUnits[row] != NO_VALUE;
+    }
+
+    /**
+     * @return source amount in minor units or 0 if there is no source amount
+     */
+    public long getSourceMinorUnits(int row) {
+        return hasSourceAmount(row) ? sourceMinorUnits[row] : 0;
+    }
+
+    /**
+     * @return digits after point of source amount, see {@link AmountWithCcy#getScale()}
+     */
+    public int getSourceScale(int row) {
+        checkRow(row);
+        return sourceScales[row];
+    }
+
+    public boolean hasTargetAmount(int row) {
+        checkRow(row);
+        return targetMinorUnits[row] != NO_VALUE;
+    }
+
+    /**
+     * @return target amount in minor units or 0 if there is no target amount
+     */
+    public long getTargetMinorUnits(int row) {
+        return hasTargetAmount(row) ? targetMinorUnits[row] : 0;
+    }
+
+    /**
+     * @return digits after point of target amount, see {@link AmountWithCcy#getScale()}
+     */
+    public int getTargetScale(int row) {
+        checkRow(row);
+        return targetScales[row];
+    }
+
+    public int getDescriptionCode(int row) {
+        checkRow(row);
+        return descriptionCodes[row];
+    }
+
+    public String getDescription(int row) {
+        return dictionary.decode(getDescriptionCode(row));
+    }
+
+    public void setDescription(int row, String description) {
+        checkRow(row);
+        descriptionCodes[row] = dictionary.encode(description);
+    }
+
+    public String getCategory(int row) {
+        checkRow(row);
+        return dictionary.decode(categoryCodes[row]);
+    }
+
+    public void setCategory(int row, String category) {
+        checkRow(row);
+        categoryCodes[row] = dictionary.encode(category);
+    }
+
+    public String getSourceWallet(int row) {
+        checkRow(row);
+        return dictionary.decode(sourceWalletCodes[row]);
+    }
+
+    public void setSourceWallet(int row, String sourceWallet) {
+        checkRow(row);
+        sourceWalletCodes[row] = dictionary.encode(sourceWallet);
+    }
+
+    public String getTargetWallet(int row) {
+        checkRow(row);
+        return dictionary.decode(targetWalletCodes[row]);
+    }
+
+    public void setTargetWallet(int row, String targetWallet) {
+        checkRow(row);
+        targetWalletCodes[row] = dictionary.encode(targetWallet);
+    }
+
+    @Nullable
+    public LocalDateTime getOperationDate(int row) {
+        checkRow(row);
+        if (operationDateSeconds == null || operationDateSeconds[row] == NO_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(operationDateSeconds[row], 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Creates transaction object with values of the row. Later changes of the batch are not reflected in it.
+     */
+    public MoneyTransaction get(int row) {
+        return MoneyTransaction.builder()
+                .operationType(getOperationType(row))
+                .date(getDate(row))
+                .description(getDescription(row))
+                .amounts(Amounts.builder()
+                        .sourceAmount(getAmount(row, sourceMinorUnits, sourceScales, sourceCcyCodes))
+                        .targetAmount(getAmount(row, targetMinorUnits, targetScales, targetCcyCodes))
+                        .build())
+                .category(getCategory(row))
+                .sourceWallet(getSourceWallet(row))
+                .targetWallet(getTargetWallet(row))
+                .operationDate(getOperationDate(row))
+                .build();
+    }
+
+    @Nullable
+    private AmountWithCcy getAmount(int row, long[] minorUnits, byte[] scales, int[] ccyCodes) {
+        if (minorUnits[row] == NO_VALUE) {
+            return null;
+        }
+        return AmountWithCcy.builder()
+                .minorUnits(minorUnits[row])
+                .scale(scales[row])
+                .ccy(dictionary.decode(ccyCodes[row]))
+                .build();
+    }
+
+    /**
+     * @return read only list of row views, see {@link #get(int)}
+     */
+    public List<MoneyTransaction> asList() {
+        return new AbstractList<MoneyTransaction>() {
+            @Override
+            public MoneyTransaction get(int index) {
+                return TransactionBatch.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public Stream<MoneyTransaction> stream() {
+        return asList().stream();
+    }
+}
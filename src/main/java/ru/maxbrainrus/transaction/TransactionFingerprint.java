@@ -0,0 +1,92 @@
+package ru.maxbrainrus.transaction;
+
+/**
+ * 64-bit fingerprint of parsed transaction identifying it across runs and statements.
+ * <p>
+ * It is made of date, operation type, amounts, wallet and description normalized to letters and digits in lower case,
+ * so it should be taken before categories and additional descriptions are filled.
+ * <p>
+ * Card hold and its later settled row have the same fingerprint: date of both is the operation date,
+ * and country code prefix of hold merchant ("RU SOME.SERVICE" for settled "SOME.SERVICE") is skipped.
+ */
+public class TransactionFingerprint {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final int COUNTRY_PREFIX_LENGTH = 3;
+
+    private TransactionFingerprint() {
+    }
+
+    public static long of(MoneyTransaction transaction) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = add(hash, transaction.getDate().toEpochDay());
+        hash = add(hash, transaction.getOperationType().ordinal());
+        Amounts amounts = transaction.getAmounts();
+        hash = add(hash, getMinorUnits(amounts.getSourceAmount()));
+        hash = add(hash, getMinorUnits(amounts.getTargetAmount()));
+        hash = addNormalized(hash, transaction.getSourceWallet() != null ? transaction.getSourceWallet() : transaction.getTargetWallet(), 0);
+        String description = transaction.getDescription();
+        hash = addNormalized(hash, description, getCountryPrefixLength(description));
+        return mix(hash);
+    }
+
+    /**
+     * Distinguishes equal transactions of one day (two equal cups of coffee): n-th of them gets its own fingerprint.
+     *
+     * @param ordinal number of equal transactions before this one
+     */
+    public static long withOrdinal(long fingerprint, int ordinal) {
+        return ordinal == 0 ? fingerprint : mix(fingerprint + ordinal * GOLDEN_GAMMA);
+    }
+
+    private static long getMinorUnits(AmountWithCcy amount) {
+        return amount == null ? 0 : amount.getMinorUnits();
+    }
+
+    private static long add(long hash, long value) {
+        long result = (hash ^ value) * GOLDEN_GAMMA;
+        return result ^ (result >>> 32);
+    }
+
+    /**
+     * @return length of "RU " like prefix: two latin capital letters and space
+     */
+    private static int getCountryPrefixLength(String description) {
+        if (description != null && description.length() > COUNTRY_PREFIX_LENGTH
+                && isLatinCapital(description.charAt(0)) && isLatinCapital(description.charAt(1)) && description.charAt(2) == ' ') {
+            return COUNTRY_PREFIX_LENGTH;
+        }
+        return 0;
+    }
+
+    private static boolean isLatinCapital(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * Hashes letters and digits of value from the given index in lower case, so case, whitespaces and punctuation don't matter
+     */
+    private static long addNormalized(long hash, CharSequence value, int from) {
+        if (value == null) {
+            return add(hash, -1);
+        }
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            }
+        }
+        return add(hash, 0);
+    }
+
+    // Finalizer of MurmurHash3
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,133 @@
+package ru.maxbrainrus.app;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.config.KeyWordMatcher;
+import ru.maxbrainrus.parser.ReportGenerator;
+import ru.maxbrainrus.parser.ReportOptions;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class InboxWatcherTest {
+    private Path inbox;
+    private InboxWatcher inboxWatcher;
+
+    private static Path getResourcePath(String resourcePath) {
+        return new File(InboxWatcherTest.class.getResource(resourcePath).getPath()).toPath();
+    }
+
+    private static List<String> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        inbox = Files.createTempDirectory("inbox");
+        ReportGenerator reportGenerator = new ReportGenerator(
+                KeyWordMatcher.compile(Collections.singletonMap("transfer", ConfigValue.builder().category("Other wallet").build())),
+                ReportOptions.builder()
+                        .sourceWallet("testWallet")
+                        .bankFormatType(BankFormatType.RAIF)
+                        .build());
+        inboxWatcher = new InboxWatcher(inbox, reportGenerator);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(inbox)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testStatementRemovedWhileChecked() throws Exception {
+        Path removed = inbox.resolve("a.csv");
+        Files.copy(getResourcePath("/raiff_example.csv"), removed);
+        Files.copy(getResourcePath("/raiff_example.csv"), inbox.resolve("b.csv"));
+        Thread remover = new Thread(() -> {
+            try {
+                // Statement is checked for changes for longer than that
+                Thread.sleep(100);
+                Files.delete(removed);
+            } catch (InterruptedException | IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        remover.start();
+
+        inboxWatcher.processInbox();
+        remover.join();
+
+        assertEquals(list(inbox.resolve(InboxWatcher.DONE_DIRECTORY)), Arrays.asList("b.csv", "b.csv.report.csv"));
+        assertEquals(list(inbox.resolve(InboxWatcher.FAILED_DIRECTORY)), Collections.emptyList());
+    }
+
+    @Test
+    public void testProcessInbox() throws Exception {
+        Files.copy(getResourcePath("/raiff_example.csv"), inbox.resolve("statement.csv"));
+        Files.copy(getResourcePath("/raiff_example.csv"), inbox.resolve("broken.csv"));
+        Files.write(inbox.resolve("broken.csv"), "not a transaction\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.write(inbox.resolve(".uploading.csv"), "not a statement".getBytes(StandardCharsets.UTF_8));
+
+        inboxWatcher.processInbox();
+
+        assertEquals(list(inbox), Arrays.asList(".uploading.csv", InboxWatcher.DONE_DIRECTORY, InboxWatcher.FAILED_DIRECTORY));
+        assertEquals(list(inbox.resolve(InboxWatcher.DONE_DIRECTORY)), Arrays.asList("statement.csv", "statement.csv.report.csv"));
+        assertEquals(list(inbox.resolve(InboxWatcher.FAILED_DIRECTORY)), Arrays.asList("broken.csv", "broken.csv.report.csv"));
+        List<String> report = Files.readAllLines(inbox.resolve(InboxWatcher.DONE_DIRECTORY).resolve("statement.csv.report.csv"));
+        assertEquals(report.size(), 6);
+        assertEquals(report.get(4), "2005-04-03,Доход,40000.00,Other wallet,transfer money from one account to another,testWallet,");
+    }
+
+    @Test
+    public void testStatementWithTheSameNameIsNotOverwritten() throws Exception {
+        Files.copy(getResourcePath("/raiff_example.csv"), inbox.resolve("statement.csv"));
+        inboxWatcher.processInbox();
+        Files.copy(getResourcePath("/raiff_example.csv"), inbox.resolve("statement.csv"));
+        inboxWatcher.processInbox();
+
+        assertEquals(list(inbox.resolve(InboxWatcher.DONE_DIRECTORY)), Arrays.asList(
+                "statement-1.csv", "statement-1.csv.report.csv", "statement.csv", "statement.csv.report.csv"));
+        assertFalse(Files.exists(inbox.resolve("statement.csv")));
+    }
+
+    @Test(timeOut = 30000)
+    public void testWatchNewStatements() throws Exception {
+        Thread watcher = new Thread(inboxWatcher::run);
+        watcher.start();
+        try {
+            Files.copy(getResourcePath("/raiff_example.csv"), inbox.resolve("statement.csv"));
+            Path report = inbox.resolve(InboxWatcher.DONE_DIRECTORY).resolve("statement.csv.report.csv");
+            while (!Files.exists(inbox.resolve(InboxWatcher.DONE_DIRECTORY).resolve("statement.csv"))) {
+                Thread.sleep(100);
+            }
+            assertEquals(Files.readAllLines(report).size(), 6);
+        } finally {
+            watcher.interrupt();
+            watcher.join();
+        }
+    }
+}
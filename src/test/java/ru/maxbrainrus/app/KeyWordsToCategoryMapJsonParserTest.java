@@ -4,9 +4,11 @@ import org.testng.annotations.Test;
 import ru.maxbrainrus.config.ConfigValue;
 import ru.maxbrainrus.config.KeyWordsToCategoryMapJsonParser;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.testng.Assert.assertEquals;
@@ -37,6 +39,21 @@ public class KeyWordsToCategoryMapJsonParserTest {
         }
     }
 
+    @Test
+    public void testParseConfigJsonArrayWithExtraValues() throws IOException {
+        Map<String, ConfigValue> configMap = KeyWordsToCategoryMapJsonParser.parseConfigJson(new ByteArrayInputStream(
+                "{\"a\": [\"category\", \"description\", \"ignored\", [\"ignored\"]], \"b\": \"other\"}".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(configMap.get("a"), configValue("category", "description"));
+        assertEquals(configMap.get("b"), configValue("other"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParseConfigJsonInvalidValue() throws IOException {
+        KeyWordsToCategoryMapJsonParser.parseConfigJson(new ByteArrayInputStream(
+                "{\"a\": [\"category\"]}".getBytes(StandardCharsets.UTF_8)));
+    }
+
     private ConfigValue configValue(String category) {
         return ConfigValue.builder().category(category).build();
     }
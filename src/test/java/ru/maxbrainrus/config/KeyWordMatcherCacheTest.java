@@ -0,0 +1,108 @@
+package ru.maxbrainrus.config;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.generator.StatementGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class KeyWordMatcherCacheTest {
+    private static final List<String> DESCRIPTIONS = Arrays.asList(
+            "", "unknown", "CARD2CARD transfer", "внутрибанковский перевод между счетами", "payment without keyword");
+
+    private Path directory;
+    private File config;
+    private Path cacheFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("config");
+        config = directory.resolve("config.json").toFile();
+        cacheFile = KeyWordMatcherCache.getCacheFile(config.toPath());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile);
+        Files.deleteIfExists(config.toPath());
+        Files.delete(directory);
+    }
+
+    private static void assertSameMatches(KeyWordMatcher actual, KeyWordMatcher expected, Map<String, ConfigValue> config) {
+        assertEquals(actual.size(), expected.size());
+        for (String description : DESCRIPTIONS) {
+            assertEquals(actual.findFirst(description), expected.findFirst(description), description);
+        }
+        for (String keyWord : config.keySet()) {
+            String description = "payment to " + keyWord + " in shop";
+            assertEquals(actual.findFirst(description), expected.findFirst(description), description);
+        }
+    }
+
+    @Test
+    public void testCacheIsCreatedAndUsed() throws IOException {
+        new StatementGenerator(1).writeKeyWordsToCategoryMap(300, config);
+        Map<String, ConfigValue> map = KeyWordsToCategoryMapJsonParser.parseConfigJson(config);
+        KeyWordMatcher expected = KeyWordMatcher.compile(map);
+
+        assertSameMatches(KeyWordMatcherCache.load(config), expected, map);
+        assertTrue(Files.isRegularFile(cacheFile));
+        FileTime cacheTime = Files.getLastModifiedTime(cacheFile);
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(cacheTime.toMillis() - 10000));
+        cacheTime = Files.getLastModifiedTime(cacheFile);
+
+        assertSameMatches(KeyWordMatcherCache.load(config), expected, map);
+        assertEquals(Files.getLastModifiedTime(cacheFile), cacheTime);
+    }
+
+    @Test
+    public void testChangedConfigIsRecompiled() throws IOException {
+        new StatementGenerator(1).writeKeyWordsToCategoryMap(100, config);
+        KeyWordMatcherCache.load(config);
+        byte[] oldCache = Files.readAllBytes(cacheFile);
+
+        new StatementGenerator(2).writeKeyWordsToCategoryMap(200, config);
+        Map<String, ConfigValue> map = KeyWordsToCategoryMapJsonParser.parseConfigJson(config);
+
+        assertSameMatches(KeyWordMatcherCache.load(config), KeyWordMatcher.compile(map), map);
+        assertNotEquals(Files.readAllBytes(cacheFile), oldCache);
+    }
+
+    @Test
+    public void testBrokenCacheIsIgnored() throws IOException {
+        new StatementGenerator(1).writeKeyWordsToCategoryMap(100, config);
+        KeyWordMatcherCache.load(config);
+        byte[] cache = Files.readAllBytes(cacheFile);
+        Files.write(cacheFile, Arrays.copyOf(cache, cache.length / 2));
+        Map<String, ConfigValue> map = KeyWordsToCategoryMapJsonParser.parseConfigJson(config);
+
+        assertSameMatches(KeyWordMatcherCache.load(config), KeyWordMatcher.compile(map), map);
+        assertEquals(Files.readAllBytes(cacheFile), cache);
+    }
+
+    @Test
+    public void testNullAdditionalDescriptionAndEmptyConfig() throws IOException {
+        Files.write(config.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+        KeyWordMatcherCache.load(config);
+        assertEquals(KeyWordMatcherCache.load(config).size(), 0);
+
+        Files.write(config.toPath(), "{\"a\": \"category\", \"b\": [\"category\", \"description\"]}".getBytes(StandardCharsets.UTF_8));
+        KeyWordMatcherCache.load(config);
+        KeyWordMatcher matcher = KeyWordMatcherCache.load(config);
+        assertEquals(matcher.findFirst("xax").get(), ConfigValue.builder().category("category").build());
+        assertEquals(matcher.findFirst("xbx").get(), ConfigValue.builder().category("category").additionalDescription("description").build());
+    }
+}
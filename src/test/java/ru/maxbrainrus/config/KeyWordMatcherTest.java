@@ -0,0 +1,74 @@
+package ru.maxbrainrus.config;
+
+import org.testng.annotations.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+
+public class KeyWordMatcherTest {
+
+    private static Optional<ConfigValue> findFirstNaive(Map<String, ConfigValue> keyWordsToConfigMap, String description) {
+        return keyWordsToConfigMap.entrySet().stream()
+                .filter(entry -> description.toLowerCase().contains(entry.getKey().toLowerCase()))
+                .findFirst()
+                .map(Map.Entry::getValue);
+    }
+
+    private static ConfigValue configValue(String category) {
+        return ConfigValue.builder().category(category).build();
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testFirstDeclaredKeyWordWins() {
+        Map<String, ConfigValue> config = new LinkedHashMap<>();
+        config.put("hers", configValue("Hers"));
+        config.put("SHE", configValue("She"));
+        config.put("he", configValue("He"));
+        KeyWordMatcher matcher = KeyWordMatcher.compile(config);
+
+        assertEquals(matcher.findFirst("ushers"), Optional.of(configValue("Hers")));
+        assertEquals(matcher.findFirst("Ushe"), Optional.of(configValue("She")));
+        assertEquals(matcher.findFirst("the end"), Optional.of(configValue("He")));
+        assertEquals(matcher.findFirst("nothing"), Optional.empty());
+    }
+
+    @Test
+    public void testCyrillicCaseInsensitive() {
+        Map<String, ConfigValue> config = new LinkedHashMap<>();
+        config.put("Перевод", configValue("Transfer"));
+        KeyWordMatcher matcher = KeyWordMatcher.compile(config);
+
+        assertEquals(matcher.findFirst("Внутрибанковский ПЕРЕВОД между счетами"), Optional.of(configValue("Transfer")));
+    }
+
+    @Test
+    public void testSameResultAsLinearSearch() {
+        Random random = new Random(42);
+        String alphabet = "abcAB Яя";
+        for (int attempt = 0; attempt < 200; attempt++) {
+            Map<String, ConfigValue> config = new LinkedHashMap<>();
+            int keyWordCount = random.nextInt(20);
+            for (int i = 0; i < keyWordCount; i++) {
+                config.put(randomString(random, alphabet, 4), configValue("Category" + i));
+            }
+            KeyWordMatcher matcher = KeyWordMatcher.compile(config);
+            for (int i = 0; i < 20; i++) {
+                String description = randomString(random, alphabet, 30);
+                assertEquals(matcher.findFirst(description), findFirstNaive(config, description), description);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ru.maxbrainrus.dedup;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.parser.statement.AlfaStatementParser;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TestTransactions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class DuplicateFilterTest {
+    private static final String ALFA_HEADER = "Тип счёта;Номер счета;Валюта;Дата операции;Референс проводки;Описание операции;Приход;Расход;";
+    private Path directory;
+    private Path indexFile;
+
+    private static MoneyTransaction transaction(int day, String description) {
+        return TestTransactions.expenditure(LocalDate.of(2020, 1, 1).plusDays(day), description, "wallet");
+    }
+
+    private static List<MoneyTransaction> statement(int fromDay, int toDay) {
+        List<MoneyTransaction> result = new ArrayList<>();
+        for (int day = fromDay; day < toDay; day++) {
+            result.add(transaction(day, "Shop"));
+            result.add(transaction(day, "Coffee"));
+            result.add(transaction(day, "Coffee"));
+        }
+        return result;
+    }
+
+    private List<MoneyTransaction> deduplicate(List<MoneyTransaction> statement) throws IOException {
+        try (DuplicateFilter filter = new DuplicateFilter(FingerprintIndex.open(indexFile))) {
+            List<MoneyTransaction> result = filter.filter(statement.stream()).collect(Collectors.toList());
+            filter.commit();
+            return result;
+        }
+    }
+
+    private static List<MoneyTransaction> parseAlfaStatement(String... rows) {
+        StringBuilder statement = new StringBuilder(ALFA_HEADER);
+        for (String row : rows) {
+            statement.append("\r\n").append(row);
+        }
+        byte[] bytes = statement.toString().getBytes(Charset.forName("windows-1251"));
+        return new AlfaStatementParser().parseBankStatement(new ByteArrayInputStream(bytes), "wallet");
+    }
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("dedup");
+        indexFile = directory.resolve("fingerprints.idx");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testOverlappingStatements() throws IOException {
+        List<MoneyTransaction> first = statement(0, 100);
+        assertEquals(deduplicate(first), first);
+
+        List<MoneyTransaction> second = statement(50, 150);
+        second.add(transaction(60, "  COFFEE"));
+        List<MoneyTransaction> expected = new ArrayList<>(statement(100, 150));
+        expected.add(transaction(60, "  COFFEE"));
+        assertEquals(deduplicate(second), expected);
+
+        assertEquals(deduplicate(statement(0, 150)), new ArrayList<>());
+    }
+
+    @Test
+    public void testSettledRowOfExportedHold() throws IOException {
+        List<MoneyTransaction> withHold = parseAlfaStatement(
+                "Имя карты;12345678901234567890;RUR;01.02.03;HOLD;RU SOME.SERVICE>MOSCOW 01.02.03 01.02.03 100.00 RUR 123456++++++1234;0;100;");
+        assertEquals(deduplicate(withHold), withHold);
+
+        List<MoneyTransaction> settled = parseAlfaStatement(
+                "Имя карты;12345678901234567890;RUR;03.02.03;SOME_REFERENCE1;123456++++++1234    12345678\\RUS\\MOSCOW\\SOME.SERVICE            01.02.03 03.02.03        100.00  RUR MCC1234;0;100,00;",
+                "Имя карты;12345678901234567890;RUR;03.02.03;SOME_REFERENCE2;123456++++++1234    12345678\\RUS\\MOSCOW\\OTHER.SERVICE            01.02.03 03.02.03        100.00  RUR MCC1234;0;100,00;");
+        assertEquals(settled.get(0).getDescription(), "SOME.SERVICE");
+        assertEquals(settled.get(0).getDate(), withHold.get(0).getDate());
+        assertEquals(deduplicate(settled), settled.subList(1, 2));
+    }
+
+    @Test
+    public void testIndexInNewDirectory() throws IOException {
+        Path nestedIndex = directory.resolve("new").resolve("fingerprints.idx");
+        try (DuplicateFilter filter = new DuplicateFilter(FingerprintIndex.open(nestedIndex))) {
+            assertEquals(filter.filter(statement(0, 1).stream()).count(), 3);
+            filter.commit();
+        }
+        try (FingerprintIndex index = FingerprintIndex.open(nestedIndex)) {
+            assertEquals(index.size(), 3);
+        }
+        try (Stream<Path> files = Files.list(nestedIndex.getParent())) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(nestedIndex.getParent());
+    }
+
+    @Test
+    public void testIndexMerge() throws IOException {
+        Random random = new Random(1);
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int run = 0; run < 5; run++) {
+            long[] added = random.longs(1000 + random.nextInt(1000)).toArray();
+            for (int i = 0; i < 100; i++) {
+                // Already indexed and repeated fingerprints
+                added[i] = expected.isEmpty() ? added[i + 100] : expected.first();
+            }
+            try (FingerprintIndex index = FingerprintIndex.open(indexFile)) {
+                index.merge(added);
+            }
+            for (long fingerprint : added) {
+                expected.add(fingerprint);
+            }
+        }
+        Files.delete(indexFile.resolveSibling("fingerprints.idx.bloom"));
+
+        try (FingerprintIndex index = FingerprintIndex.open(indexFile)) {
+            assertEquals(index.size(), expected.size());
+            for (long fingerprint : expected) {
+                assertTrue(index.contains(fingerprint));
+            }
+            random.longs(10000)
+                    .filter(fingerprint -> !expected.contains(fingerprint))
+                    .forEach(fingerprint -> assertFalse(contains(index, fingerprint)));
+        }
+        assertTrue(Files.exists(indexFile.resolveSibling("fingerprints.idx.bloom")));
+    }
+
+    private static boolean contains(FingerprintIndex index, long fingerprint) {
+        try {
+            return index.contains(fingerprint);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.maxbrainrus.generator;
+
+import org.testng.annotations.Test;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.parser.ConfigFiller;
+import ru.maxbrainrus.parser.statement.AlfaStatementParser;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.CsvStatementParser;
+import ru.maxbrainrus.parser.statement.RaiffeisenStatementParser;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.OperationType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class StatementGeneratorTest {
+
+    private static byte[] generate(long seed, BankFormatType bankFormatType, int rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StatementGenerator(seed).writeStatement(bankFormatType, rows, out);
+        return out.toByteArray();
+    }
+
+    private static void assertParsable(CsvStatementParser parser, BankFormatType bankFormatType) throws IOException {
+        List<MoneyTransaction> transactions = parser.parseBankStatement(new ByteArrayInputStream(generate(1, bankFormatType, 5000)), "wallet");
+        assertEquals(transactions.size(), 5000);
+        assertTrue(transactions.stream().anyMatch(transaction -> transaction.getOperationType() == OperationType.TRANSFER));
+        assertTrue(transactions.stream().anyMatch(transaction -> transaction.getOperationType() == OperationType.INCOME));
+
+        Map<String, ConfigValue> config = new StatementGenerator(1).generateKeyWordsToCategoryMap(100);
+        assertEquals(config.size(), 100);
+        long categorized = new ConfigFiller(config).fill(transactions).stream()
+                .filter(transaction -> transaction.getCategory() != null)
+                .count();
+        assertTrue(categorized > 1000, "categorized: " + categorized);
+    }
+
+    @Test
+    public void testSameSeedGivesSameStatement() throws IOException {
+        assertEquals(generate(7, BankFormatType.ALFA, 1000), generate(7, BankFormatType.ALFA, 1000));
+        assertNotEquals(generate(7, BankFormatType.ALFA, 1000), generate(8, BankFormatType.ALFA, 1000));
+    }
+
+    @Test
+    public void testRaiffeisenStatementIsParsable() throws IOException {
+        assertParsable(new RaiffeisenStatementParser(), BankFormatType.RAIF);
+    }
+
+    @Test
+    public void testAlfaStatementIsParsable() throws IOException {
+        assertParsable(new AlfaStatementParser(), BankFormatType.ALFA);
+    }
+
+    @Test
+    public void testStatementDoesNotDependOnDefaultLocale() throws IOException {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.US);
+            byte[] raif = generate(3, BankFormatType.RAIF, 2000);
+            byte[] alfa = generate(3, BankFormatType.ALFA, 2000);
+            for (String locale : new String[]{"ru-RU", "de-DE", "tr-TR", "th-TH-u-nu-thai"}) {
+                Locale.setDefault(Locale.forLanguageTag(locale));
+                assertEquals(generate(3, BankFormatType.RAIF, 2000), raif, locale);
+                assertEquals(generate(3, BankFormatType.ALFA, 2000), alfa, locale);
+            }
+            List<MoneyTransaction> transactions = new RaiffeisenStatementParser().parseBankStatement(new ByteArrayInputStream(raif), "wallet");
+            assertEquals(transactions.size(), 2000);
+            assertTrue(transactions.stream().anyMatch(transaction -> Math.abs(transaction.getAmounts().getSourceAmount() != null
+                    ? transaction.getAmounts().getSourceAmount().getMinorUnits()
+                    : transaction.getAmounts().getTargetAmount().getMinorUnits()) >= 100000));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.maxbrainrus.incremental;
+
+import org.testng.annotations.Test;
+import ru.maxbrainrus.parser.statement.StatementDateOrder;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.TestTransactions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class IncrementalFilterTest {
+    private static final String WALLET = "Рокет карта";
+
+    private static MoneyTransaction transaction(int day, String description) {
+        return TestTransactions.expenditure(LocalDate.of(2020, 1, day), description, WALLET);
+    }
+
+    private static List<MoneyTransaction> filter(IncrementalFilter filter, List<MoneyTransaction> statement, StatementDateOrder dateOrder) {
+        return filter.filter(statement.stream(), dateOrder).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOnlyNewTransactionsPass() {
+        List<MoneyTransaction> firstStatement = Arrays.asList(
+                transaction(1, "Shop"),
+                transaction(2, "Coffee"),
+                transaction(2, "Coffee"),
+                transaction(2, "Taxi"));
+        IncrementalFilter firstRun = new IncrementalFilter(WALLET, null);
+        assertEquals(filter(firstRun, firstStatement, StatementDateOrder.UNKNOWN), firstStatement);
+        Checkpoint checkpoint = firstRun.getCheckpoint().get();
+        assertEquals(checkpoint.getLastDate(), LocalDate.of(2020, 1, 2));
+        assertEquals(checkpoint.getLastDateFingerprints().size(), 3);
+
+        List<MoneyTransaction> secondStatement = new ArrayList<>(firstStatement);
+        // The third cup of coffee of the same day and space differences in description
+        secondStatement.add(transaction(2, "  COFFEE "));
+        secondStatement.add(transaction(3, "Shop"));
+        IncrementalFilter secondRun = new IncrementalFilter(WALLET, checkpoint);
+        assertEquals(filter(secondRun, secondStatement, StatementDateOrder.ASCENDING), secondStatement.subList(4, 6));
+        assertEquals(secondRun.getSkipped(), 4);
+        assertEquals(secondRun.getCheckpoint().get().getLastDate(), LocalDate.of(2020, 1, 3));
+
+        IncrementalFilter thirdRun = new IncrementalFilter(WALLET, secondRun.getCheckpoint().get());
+        assertEquals(filter(thirdRun, secondStatement, StatementDateOrder.UNKNOWN), Collections.emptyList());
+        assertEquals(thirdRun.getCheckpoint(), secondRun.getCheckpoint());
+    }
+
+    @Test
+    public void testDescendingStatementIsReadUpToCheckpoint() {
+        Checkpoint checkpoint = Checkpoint.builder()
+                .sourceWallet(WALLET)
+                .lastDate(LocalDate.of(2020, 1, 2))
+                .lastDateFingerprints(Collections.emptySet())
+                .build();
+        List<MoneyTransaction> statement = Arrays.asList(
+                transaction(3, "Shop"),
+                transaction(2, "Taxi"),
+                transaction(1, "Coffee"),
+                transaction(1, "Coffee"));
+        AtomicInteger read = new AtomicInteger();
+        List<MoneyTransaction> result = new IncrementalFilter(WALLET, checkpoint)
+                .filter(statement.stream().peek(transaction -> read.incrementAndGet()), StatementDateOrder.DESCENDING)
+                .collect(Collectors.toList());
+        assertEquals(result, statement.subList(0, 2));
+        assertEquals(read.get(), 3);
+    }
+
+    @Test
+    public void testCheckpointStore() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoints");
+        try {
+            assertFalse(CheckpointStore.load(directory, WALLET).isPresent());
+            IncrementalFilter filter = new IncrementalFilter(WALLET, null);
+            filter(filter, Arrays.asList(transaction(5, "Shop"), transaction(5, "Shop")), StatementDateOrder.UNKNOWN);
+            Checkpoint checkpoint = filter.getCheckpoint().get();
+            CheckpointStore.save(directory, checkpoint);
+            CheckpointStore.save(directory, checkpoint);
+            assertEquals(CheckpointStore.load(directory, WALLET).get(), checkpoint);
+            assertFalse(CheckpointStore.load(directory, "other").isPresent());
+        } finally {
+            Files.deleteIfExists(CheckpointStore.getCheckpointFile(directory, WALLET));
+            Files.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.maxbrainrus.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+
+public class JfrEventsTest {
+
+    private static PipelineSummary createSummary() {
+        PipelineMetrics metrics = new PipelineMetrics("test");
+        try (Stream<Integer> parsed = metrics.measureSource(IntStream.range(0, 10).boxed())) {
+            metrics.measureSink(PipelineStage.WRITE, parsed, stream -> stream.forEach(i -> {
+            }));
+        }
+        return metrics.finish(3, 7);
+    }
+
+    @Test
+    public void testReportEventWithoutStageEvents() throws IOException {
+        Path file = Files.createTempFile("report", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("ru.maxbrainrus.Report");
+            recording.disable("ru.maxbrainrus.PipelineStage");
+            recording.start();
+            JfrEvents.emit(createSummary());
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().startsWith("ru.maxbrainrus."))
+                    .collect(Collectors.toList());
+            assertEquals(events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList()),
+                    Collections.singletonList("ru.maxbrainrus.Report"));
+            assertEquals(events.get(0).getLong("rows"), 10);
+            assertEquals(events.get(0).getLong("keyWordMisses"), 7);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
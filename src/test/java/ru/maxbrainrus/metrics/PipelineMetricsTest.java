@@ -0,0 +1,59 @@
+package ru.maxbrainrus.metrics;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class PipelineMetricsTest {
+
+    @Test
+    public void testRowCounts() {
+        PipelineMetrics metrics = new PipelineMetrics("test");
+        List<String> result = new ArrayList<>();
+        boolean[] closed = {false};
+
+        Stream<Integer> source = IntStream.range(0, 10).boxed().onClose(() -> closed[0] = true);
+        try (Stream<Integer> parsed = metrics.measureSource(source)) {
+            Stream<Integer> filtered = metrics.measure(PipelineStage.CUT, parsed, stream -> stream.filter(i -> i % 2 == 0));
+            Stream<String> filled = metrics.measure(PipelineStage.FILL, filtered, stream -> stream.map(i -> "row " + i));
+            metrics.measureSink(PipelineStage.WRITE, filled, stream -> stream.forEachOrdered(result::add));
+        }
+        PipelineSummary summary = metrics.finish(3, 2);
+
+        assertTrue(closed[0]);
+        assertEquals(result, Arrays.asList("row 0", "row 2", "row 4", "row 6", "row 8"));
+        assertEquals(summary.getRows(), 10);
+        assertEquals(summary.getKeyWordHits(), 3);
+        assertEquals(summary.getKeyWordMisses(), 2);
+        assertEquals(summary.getStages().stream().map(StageSummary::getStage).collect(Collectors.toList()),
+                Arrays.asList(PipelineStage.PARSE, PipelineStage.CUT, PipelineStage.FILL, PipelineStage.WRITE));
+        assertEquals(summary.getStages().stream().map(stage -> stage.getRowsIn() + "->" + stage.getRowsOut()).collect(Collectors.toList()),
+                Arrays.asList("10->10", "10->5", "5->5", "5->5"));
+        for (StageSummary stage : summary.getStages()) {
+            assertTrue(stage.getNanos() >= 0, stage.toString());
+            assertTrue(stage.getNanos() <= summary.getNanos(), stage.toString());
+        }
+    }
+
+    @Test
+    public void testStageOutOfStream() {
+        PipelineMetrics metrics = new PipelineMetrics("test");
+        metrics.add(PipelineStage.PARSE, 4, 4, 1000);
+        metrics.measureSink(PipelineStage.WRITE, Stream.of(1, 2, 3, 4), stream -> stream.forEach(i -> {
+        }));
+        PipelineSummary summary = metrics.finish(0, 0);
+
+        assertEquals(summary.getRows(), 4);
+        assertEquals(summary.getStages().get(0).getNanos(), 1000);
+        assertEquals(summary.getStages().get(0).getRecordsPerSecond(), 4e6, 1e-6);
+        assertEquals(summary.getStages().get(1).getRowsIn(), 4);
+    }
+}
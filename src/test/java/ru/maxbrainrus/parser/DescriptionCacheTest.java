@@ -0,0 +1,71 @@
+package ru.maxbrainrus.parser;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class DescriptionCacheTest {
+    private static final String NOTHING = "nothing";
+
+    @Test
+    public void testValueIsLoadedOnce() {
+        DescriptionCache<String> cache = new DescriptionCache<>();
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(cache.get(new String("PYATEROCHKA 123"), description -> {
+                loads.incrementAndGet();
+                return "Products";
+            }), "Products");
+        }
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getHits(), 2);
+        assertEquals(cache.getMisses(), 1);
+    }
+
+    @Test
+    public void testAbsentValueIsCached() {
+        DescriptionCache<String> cache = new DescriptionCache<>();
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(cache.get("UNKNOWN SHOP", description -> {
+                loads.incrementAndGet();
+                return NOTHING;
+            }), NOTHING);
+        }
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        DescriptionCache<String> cache = new DescriptionCache<>(4);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            cache.get("shop" + i, description -> {
+                loads.incrementAndGet();
+                return description;
+            });
+        }
+        assertEquals(loads.get(), 1000);
+        // Evicted description is loaded again
+        cache.get("shop0", description -> {
+            loads.incrementAndGet();
+            return description;
+        });
+        assertEquals(loads.get(), 1001);
+    }
+
+    @Test
+    public void testConcurrentLookups() {
+        DescriptionCache<String> cache = new DescriptionCache<>(64);
+        IntStream.range(0, 200_000).parallel().forEach(i -> {
+            String description = "shop " + i % 100;
+            assertEquals(cache.get(description, String::toUpperCase), description.toUpperCase());
+        });
+        assertEquals(cache.getHits() + cache.getMisses(), 200_000);
+        assertTrue(cache.getHits() > 0);
+    }
+}
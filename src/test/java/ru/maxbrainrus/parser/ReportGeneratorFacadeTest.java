@@ -0,0 +1,177 @@
+package ru.maxbrainrus.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.testng.Assert.assertEquals;
+
+public class ReportGeneratorFacadeTest {
+
+    private static String getResourcePath(String resourcePath) {
+        return new File(ReportGeneratorFacadeTest.class.getResource(resourcePath).getPath()).getPath();
+    }
+
+    @Test
+    public void testMakeReport() throws IOException {
+        Map<String, ConfigValue> config = new LinkedHashMap<>();
+        config.put("some transaction", ConfigValue.builder().category("Shop").build());
+        config.put("rollback", ConfigValue.builder().category("Refund").additionalDescription("Shop refund").build());
+        config.put("transfer", ConfigValue.builder().category("Other wallet").build());
+        Path report = Files.createTempFile("report", ".csv");
+        try {
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), report.toString(), config,
+                    LocalDate.of(2000, 2, 1), "testWallet", BankFormatType.RAIF);
+
+            List<String> expectedLines = Arrays.asList(
+                    "Дата,Тип транзакции,Сумма,Категория,Описание,Наличность,Наличность (куда)",
+                    "2003-02-01,Расход,1234.56,Shop,SOME TRANSACTION DESCRIPTION,testWallet,",
+                    "2004-03-02,Расход,234.00,Shop,\"\"\"some transaction with quotes\"\" and other text\",testWallet,",
+                    "2005-04-03,Доход,40000.00,Other wallet,transfer money from one account to another,testWallet,",
+                    "2020-06-05,Доход,2499.00,Refund,Shop refund (rollback money),testWallet,"
+            );
+            assertEquals(Files.readAllLines(report, StandardCharsets.UTF_8), expectedLines);
+        } finally {
+            Files.delete(report);
+        }
+    }
+
+    @Test
+    public void testGzipReport() throws IOException {
+        Path report = Files.createTempFile("report", ".csv");
+        Path gzipReport = Files.createTempFile("report", ".csv.gz");
+        try {
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), report.toString(), new LinkedHashMap<>(),
+                    LocalDate.of(2000, 2, 1), "testWallet", BankFormatType.RAIF);
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), gzipReport.toString(), new LinkedHashMap<>(),
+                    LocalDate.of(2000, 2, 1), "testWallet", BankFormatType.RAIF);
+
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipReport))) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    content.write(buffer, 0, read);
+                }
+                assertEquals(content.toByteArray(), Files.readAllBytes(report));
+            }
+        } finally {
+            Files.delete(report);
+            Files.delete(gzipReport);
+        }
+    }
+
+    @Test
+    public void testIncrementalReport() throws IOException {
+        Path checkpoints = Files.createTempDirectory("checkpoints");
+        Path report = Files.createTempFile("report", ".csv");
+        ReportOptions options = ReportOptions.builder()
+                .sourceWallet("testWallet")
+                .bankFormatType(BankFormatType.RAIF)
+                .checkpointDirectory(checkpoints)
+                .build();
+        try {
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), report.toString(), new LinkedHashMap<>(), options);
+            assertEquals(Files.readAllLines(report, StandardCharsets.UTF_8).size(), 6);
+
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), report.toString(), new LinkedHashMap<>(), options);
+            assertEquals(Files.readAllLines(report, StandardCharsets.UTF_8).size(), 1);
+        } finally {
+            Files.delete(report);
+            try (Stream<Path> files = Files.list(checkpoints)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(checkpoints);
+        }
+    }
+
+    @Test
+    public void testMetricsFile() throws IOException {
+        Map<String, ConfigValue> config = new LinkedHashMap<>();
+        config.put("some transaction", ConfigValue.builder().category("Shop").build());
+        Path report = Files.createTempFile("report", ".csv");
+        Path metrics = Files.createTempFile("metrics", ".json");
+        try {
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), report.toString(), config, ReportOptions.builder()
+                    .sourceWallet("testWallet")
+                    .bankFormatType(BankFormatType.RAIF)
+                    .cutDate(LocalDate.of(2000, 2, 1))
+                    .metricsFile(metrics)
+                    .build());
+
+            JsonNode summary = new ObjectMapper().readTree(metrics.toFile());
+            // Old transaction is skipped by parser, so it's not parsed
+            assertEquals(summary.get("rows").asLong(), 4);
+            assertEquals(summary.get("keyWordHits").asLong(), 2);
+            assertEquals(summary.get("keyWordMisses").asLong(), 2);
+            List<String> stages = new ArrayList<>();
+            for (JsonNode stage : summary.get("stages")) {
+                stages.add(stage.get("stage").asText() + " " + stage.get("rowsIn").asLong() + "->" + stage.get("rowsOut").asLong());
+            }
+            assertEquals(stages, Arrays.asList("PARSE 4->4", "CUT 5->4", "FILL 4->4", "WRITE 4->4"));
+        } finally {
+            Files.delete(report);
+            Files.delete(metrics);
+        }
+    }
+
+    @Test
+    public void testSummaryFile() throws IOException {
+        Map<String, ConfigValue> config = new LinkedHashMap<>();
+        config.put("some transaction", ConfigValue.builder().category("Shop").build());
+        Path report = Files.createTempFile("report", ".csv");
+        Path summary = Files.createTempFile("summary", ".csv");
+        try {
+            ReportGeneratorFacade.makeReport(getResourcePath("/raiff_example.csv"), report.toString(), config, ReportOptions.builder()
+                    .sourceWallet("testWallet")
+                    .bankFormatType(BankFormatType.RAIF)
+                    .summaryFile(summary)
+                    .build());
+
+            List<String> expectedLines = Arrays.asList(
+                    "Месяц,Тип транзакции,Категория,Наличность,Сумма,Валюта,Количество",
+                    "2000-02,Расход,,testWallet,1000.01,,1",
+                    "2003-02,Расход,Shop,testWallet,1234.56,,1",
+                    "2004-03,Расход,Shop,testWallet,234.00,,1",
+                    "2005-04,Доход,,testWallet,40000.00,,1",
+                    "2020-06,Доход,,testWallet,2499.00,,1",
+                    "2000-02,Расход,Все,Все,1000.01,,1",
+                    "2003-02,Расход,Все,Все,1234.56,,1",
+                    "2004-03,Расход,Все,Все,234.00,,1",
+                    "2005-04,Доход,Все,Все,40000.00,,1",
+                    "2020-06,Доход,Все,Все,2499.00,,1",
+                    "Все,Расход,,Все,1000.01,,1",
+                    "Все,Расход,Shop,Все,1468.56,,2",
+                    "Все,Доход,,Все,42499.00,,2",
+                    "Все,Расход,Все,testWallet,2468.57,,3",
+                    "Все,Доход,Все,testWallet,42499.00,,2",
+                    "Все,Расход,Все,Все,2468.57,,3",
+                    "Все,Доход,Все,Все,42499.00,,2"
+            );
+            assertEquals(Files.readAllLines(summary, StandardCharsets.UTF_8), expectedLines);
+        } finally {
+            Files.delete(report);
+            Files.delete(summary);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.maxbrainrus.parser;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class StringPoolTest {
+
+    @Test
+    public void testEqualStringsShareInstance() {
+        StringPool pool = new StringPool();
+        String first = pool.canonicalize(new String("Shop"));
+        String second = pool.canonicalize(new String("Shop"));
+        assertSame(second, first);
+        assertEquals(pool.getHits(), 1);
+        assertEquals(pool.getMisses(), 1);
+        assertEquals(pool.getHitRate(), 0.5);
+        assertTrue(pool.getSavedBytes() > 0);
+    }
+
+    @Test
+    public void testRegionIsPooledWithoutSubstring() {
+        StringPool pool = new StringPool();
+        String pooled = pool.canonicalize("PYATEROCHKA");
+        String region = pool.canonicalize("RUS\\PYATEROCHKA\\MOSCOW", 4, 15);
+        assertSame(region, pooled);
+        String missed = pool.canonicalize("RUS\\MAGNIT\\MOSCOW", 4, 10);
+        assertEquals(missed, "MAGNIT");
+        assertEquals(pool.getHits(), 1);
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        StringPool pool = new StringPool(4);
+        String first = pool.canonicalize(new String("value0"));
+        for (int i = 1; i < 1000; i++) {
+            pool.canonicalize("value" + i);
+        }
+        assertEquals(pool.getMisses(), 1000);
+        // Evicted value is stored again instead of being returned
+        assertNotSame(pool.canonicalize(new String("value0")), first);
+    }
+
+    @Test
+    public void testNull() {
+        assertNull(new StringPool().canonicalize(null));
+    }
+
+    @Test
+    public void testPooledInstanceIsNotCountedAsDuplicate() {
+        StringPool pool = new StringPool();
+        String wallet = pool.canonicalize("Рокет карта");
+        for (int i = 0; i < 10; i++) {
+            assertSame(pool.canonicalize(wallet), wallet);
+        }
+        assertEquals(pool.getHits(), 0);
+        assertEquals(pool.getMisses(), 1);
+        assertEquals(pool.getSavedBytes(), 0);
+
+        pool.canonicalize(new String("Рокет карта"));
+        // String of 11 chars in Java 8: object and array headers and 2 bytes per char
+        assertEquals(pool.getSavedBytes(), 40 + 11 * 2);
+    }
+}
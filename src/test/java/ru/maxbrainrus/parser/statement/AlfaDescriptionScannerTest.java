@@ -0,0 +1,104 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.testng.annotations.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+public class AlfaDescriptionScannerTest {
+    // Previous regex based implementation is used as reference
+    private static final Pattern DATE_REGEX_PATTERN = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{2}");
+    private static final Pattern CARD_NUMBER_PATTERN = Pattern.compile("\\d{4,}\\++\\d{4}");
+
+    private static String splitAndGetLast(String input, String regex) {
+        String[] strings = input.split(regex);
+        return strings[strings.length - 1];
+    }
+
+    private static String splitAndGetFirst(String input, String regex) {
+        return input.split(regex)[0];
+    }
+
+    private static String referenceUsefulDescription(String rawDescription) {
+        if (CARD_NUMBER_PATTERN.matcher(rawDescription).find()) {
+            return Optional.of(rawDescription)
+                    .map(s -> splitAndGetFirst(s, ">"))
+                    .map(s -> splitAndGetLast(s, "/"))
+                    .map(s -> splitAndGetLast(s, "\\\\"))
+                    .map(s -> splitAndGetFirst(s, "  "))
+                    .map(String::trim)
+                    .get();
+        }
+        return rawDescription;
+    }
+
+    private static LocalDate referenceEarliestDate(String rawDescription) {
+        Matcher matcher = DATE_REGEX_PATTERN.matcher(rawDescription);
+        List<String> datesInDescription = new ArrayList<>();
+        while (matcher.find()) {
+            datesInDescription.add(matcher.group());
+        }
+        return datesInDescription.stream()
+                .map(date -> StatementDateParser.SHORT_DATE_FORMATTER.parse(date, LocalDate::from))
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void assertSameAsReference(String rawDescription) {
+        LocalDate expectedDate;
+        try {
+            expectedDate = referenceEarliestDate(rawDescription);
+        } catch (DateTimeException e) {
+            assertThrows(DateTimeException.class, () -> new AlfaDescriptionScanner(rawDescription, new StatementDateParser()));
+            return;
+        }
+        AlfaDescriptionScanner scanner = new AlfaDescriptionScanner(rawDescription, new StatementDateParser());
+        assertEquals(scanner.getEarliestDate(), expectedDate, rawDescription);
+        assertEquals(scanner.hasCardNumber(), CARD_NUMBER_PATTERN.matcher(rawDescription).find(), rawDescription);
+        try {
+            assertEquals(scanner.getUsefulDescription(), referenceUsefulDescription(rawDescription), rawDescription);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // Previous implementation failed if a part consists of separators only, the scanner gives empty string
+            assertEquals(scanner.getUsefulDescription(), "", rawDescription);
+        }
+        assertEquals(scanner.isTransfer(), rawDescription.contains("CARD2CARD")
+                || rawDescription.contains("Внутрибанковский перевод между счетами"), rawDescription);
+    }
+
+    @Test
+    public void testKnownDescriptions() {
+        assertSameAsReference("RU SOME.SERVICE>MOSCOW 01.02.03 01.02.03 100.00 RUR 123456++++++1234");
+        assertSameAsReference("123456++++++1234    12345678\\RUS\\MOSCOW\\01 SMT\\SOME SRVS2            02.02.03 01.02.03        200.40  RUR MCC1234");
+        assertSameAsReference("123456++++++1234    123456  /RU/CARD2CARD ALFA_MOBILE>MOSCOW          04.02.04 04.02.04 600.00      RUR MCC2345");
+        assertSameAsReference("Внутрибанковский перевод между счетами, ИВАНОВ И. И.");
+        assertSameAsReference("Some income with % and some other description 900.12RUR and'04 (1.23% gg 01-30.01)");
+        assertSameAsReference("1234+12+5678 1234567+++1234 112.01.033");
+        assertSameAsReference("123+1234 1234++ 1234+123");
+        assertSameAsReference("1234+5678 a//b\\\\c\\  d  e/");
+        assertSameAsReference("1234+5678 ab/   /cd  ");
+    }
+
+    @Test
+    public void testRandomDescriptions() {
+        Random random = new Random(1);
+        String alphabet = "12+ /\\>.aC";
+        for (int attempt = 0; attempt < 20000; attempt++) {
+            StringBuilder sb = new StringBuilder("1234+5678");
+            int length = random.nextInt(25);
+            for (int i = 0; i < length; i++) {
+                sb.insert(random.nextInt(sb.length() + 1), alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsReference(sb.toString());
+        }
+    }
+}
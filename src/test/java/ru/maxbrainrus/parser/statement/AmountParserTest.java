@@ -0,0 +1,58 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.transaction.AmountWithCcy;
+
+import java.math.BigDecimal;
+
+import static org.testng.Assert.assertEquals;
+
+public class AmountParserTest {
+
+    @DataProvider
+    public static Object[][] amounts() {
+        return new Object[][]{
+                {"-1 000.01", -100001L},
+                {"40 000.00", 4000000L},
+                {"1234,5", 123450L},
+                {"200,4", 20040L},
+                {"0", 0L},
+                {"100", 10000L},
+                {"+7.10", 710L},
+                {"1\u00A0234.5600", 123456L},
+                {" 12 345 678 ", 1234567800L},
+                {".5", 50L},
+        };
+    }
+
+    @DataProvider
+    public static Object[][] wrongAmounts() {
+        return new Object[][]{
+                {""},
+                {"-"},
+                {"1.2.3"},
+                {"1.234"},
+                {"12a"},
+                {"12345678901234567"},
+                {"1.00000000000000000"},
+        };
+    }
+
+    @Test(dataProvider = "amounts")
+    public void testParseMinorUnits(String value, long expected) {
+        assertEquals(AmountParser.parseMinorUnits(value), expected);
+    }
+
+    @Test(dataProvider = "wrongAmounts", expectedExceptions = NumberFormatException.class)
+    public void testParseWrongAmount(String value) {
+        AmountParser.parseMinorUnits(value);
+    }
+
+    @Test(dataProvider = "amounts")
+    public void testAmountIsWrittenAsInStatement(String value, long expected) {
+        BigDecimal statementValue = new BigDecimal(value.replaceAll("[ \u00A0]", "").replace(',', '.'));
+        BigDecimal amount = AmountWithCcy.toBigDecimal(AmountParser.parseMinorUnits(value), AmountParser.parseScale(value));
+        assertEquals(amount.toString(), statementValue.toString());
+    }
+}
@@ -0,0 +1,100 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.parser.StringPool;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.testng.Assert.assertEquals;
+
+public class CompressedStatementsTest {
+    private Path directory;
+    private Path plain;
+    private Path gzip;
+    private Path zip;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("statements");
+        plain = Paths.get(getClass().getResource("/raiff_example.csv").toURI());
+        gzip = directory.resolve("raiff_example.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            Files.copy(plain, out);
+        }
+        zip = directory.resolve("bundle.ZIP");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("2020/"));
+            out.closeEntry();
+            for (String name : new String[]{"2020/january.csv", "2020/february.csv"}) {
+                out.putNextEntry(new ZipEntry(name));
+                Files.copy(plain, out);
+                out.closeEntry();
+            }
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        Files.delete(gzip);
+        Files.delete(zip);
+        Files.delete(directory);
+    }
+
+    @DataProvider
+    public Object[][] readModes() {
+        return Stream.of(StatementReadMode.values()).map(mode -> new Object[]{mode}).toArray(Object[][]::new);
+    }
+
+    private List<MoneyTransaction> parsePlain() throws IOException {
+        try (InputStream in = Files.newInputStream(plain)) {
+            return new RaiffeisenStatementParser().parseBankStatement(in, "wallet");
+        }
+    }
+
+    @Test(dataProvider = "readModes")
+    public void testGzip(StatementReadMode readMode) throws IOException {
+        RaiffeisenStatementParser parser = new RaiffeisenStatementParser(new StringPool(), readMode);
+        assertEquals(parser.parseBankStatement(gzip.toString(), "wallet"), parsePlain());
+        assertEquals(parser.parseBankStatementInParallel(gzip.toString(), "wallet"), parsePlain());
+    }
+
+    @Test(dataProvider = "readModes")
+    public void testZipStatementsAreReadOneAfterAnother(StatementReadMode readMode) throws IOException {
+        List<MoneyTransaction> expected = new ArrayList<>(parsePlain());
+        expected.addAll(parsePlain());
+        RaiffeisenStatementParser parser = new RaiffeisenStatementParser(new StringPool(), readMode);
+        assertEquals(parser.parseBankStatement(zip.toString(), "wallet"), expected);
+        assertEquals(parser.parseBankStatementInParallel(zip.toString(), "wallet"), expected);
+    }
+
+    @Test
+    public void testDateFilterIsAppliedToEveryStatementOfZip() throws IOException {
+        LocalDate cutDate = LocalDate.of(2004, 1, 1);
+        List<MoneyTransaction> expected = parsePlain().stream()
+                .filter(transaction -> transaction.getDate().isAfter(cutDate))
+                .collect(Collectors.toList());
+        expected.addAll(new ArrayList<>(expected));
+        StatementDateFilter dateFilter = new StatementDateFilter(cutDate, StatementDateOrder.ASCENDING);
+        try (Stream<MoneyTransaction> transactions = new RaiffeisenStatementParser().streamBankStatement(zip.toString(), "wallet", dateFilter)) {
+            assertEquals(transactions.collect(Collectors.toList()), expected);
+        }
+        assertEquals(dateFilter.getSkipped(), 4);
+    }
+}
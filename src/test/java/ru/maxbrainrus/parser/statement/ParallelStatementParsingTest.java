@@ -0,0 +1,54 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.assertEquals;
+
+public class ParallelStatementParsingTest {
+
+    private static byte[] readResource(String resourcePath) throws IOException {
+        try (InputStream in = ParallelStatementParsingTest.class.getResourceAsStream(resourcePath)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static void assertSameAsSequential(CsvStatementParser parser, String resourcePath) throws IOException {
+        byte[] statement = readResource(resourcePath);
+        List<MoneyTransaction> expected = parser.parseBankStatement(new ByteArrayInputStream(statement), "wallet");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunkSize = 1; chunkSize < statement.length; chunkSize *= 2) {
+                List<MoneyTransaction> actual = parser.parseBankStatementInParallel(statement, "wallet", pool, chunkSize);
+                assertEquals(actual, expected, "chunk size " + chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRaiffeisenChunksGiveSameResult() throws IOException {
+        assertSameAsSequential(new RaiffeisenStatementParser(), "/raiff_example.csv");
+    }
+
+    @Test
+    public void testAlfaChunksGiveSameResult() throws IOException {
+        assertSameAsSequential(new AlfaStatementParser(), "/alfa_example.csv");
+    }
+
+    @Test
+    public void testLineBreakInQuotedFieldIsNotBoundary() {
+        byte[] csv = "a;\"b\nc\";\"d\"\"\ne\"\nf;g\r\nh\"i;j\n".getBytes();
+        CsvChunkSplitter splitter = new CsvChunkSplitter(';', '"');
+        assertEquals(splitter.findRecordEnd(csv, 0), 16);
+        assertEquals(splitter.split(csv, 0, 1), new int[]{0, 16, 21, 27});
+    }
+}
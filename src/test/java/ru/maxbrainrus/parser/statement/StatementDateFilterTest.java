@@ -0,0 +1,113 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.parser.StringPool;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+
+public class StatementDateFilterTest {
+    private static final String RAIF_HEADER = "Дата транзакции;Описание;Валюта операции;Сумма в валюте операции;Валюта счета;Сумма в валюте счета\n";
+
+    private static InputStream raifStatement(String... rows) {
+        return new ByteArrayInputStream((RAIF_HEADER + String.join("\n", rows)).getBytes(Charset.forName("windows-1251")));
+    }
+
+    private static String raifRow(String date, String amount) {
+        return date + " 10:00;SHOP;RUB;" + amount + ";RUB;" + amount;
+    }
+
+    private static List<MoneyTransaction> parse(BankStatementParser parser, InputStream statement, StatementDateFilter dateFilter) {
+        try (Stream<MoneyTransaction> transactions = parser.streamBankStatement(statement, "wallet", dateFilter)) {
+            return transactions.collect(Collectors.toList());
+        }
+    }
+
+    @DataProvider
+    public Object[][] parsers() {
+        return new Object[][]{
+                {new RaiffeisenStatementParser(new StringPool(), StatementReadMode.COMMONS_CSV), "/raiff_example.csv"},
+                {new RaiffeisenStatementParser(new StringPool(), StatementReadMode.CHANNEL), "/raiff_example.csv"},
+                {new AlfaStatementParser(new StringPool(), StatementReadMode.COMMONS_CSV), "/alfa_example.csv"},
+                {new AlfaStatementParser(new StringPool(), StatementReadMode.CHANNEL), "/alfa_example.csv"},
+        };
+    }
+
+    @Test(dataProvider = "parsers")
+    public void testSameAsFilterAfterParsing(CsvStatementParser parser, String resource) {
+        List<MoneyTransaction> all = parser.parseBankStatement(getClass().getResourceAsStream(resource), "wallet");
+        for (MoneyTransaction transaction : all) {
+            LocalDate cutDate = transaction.getDate();
+            List<MoneyTransaction> expected = all.stream()
+                    .filter(t -> t.getDate().isAfter(cutDate))
+                    .collect(Collectors.toList());
+            StatementDateFilter dateFilter = new StatementDateFilter(cutDate, StatementDateOrder.UNKNOWN);
+            assertEquals(parse(parser, getClass().getResourceAsStream(resource), dateFilter), expected);
+            assertEquals(dateFilter.getSkipped(), all.size() - expected.size());
+            assertEquals(dateFilter.getObservedOrder(), StatementDateOrder.ASCENDING);
+        }
+    }
+
+    @Test
+    public void testOldRecordIsNotParsed() {
+        StatementDateFilter dateFilter = new StatementDateFilter(LocalDate.of(2020, 1, 1), StatementDateOrder.UNKNOWN);
+        List<MoneyTransaction> transactions = parse(new RaiffeisenStatementParser(), raifStatement(
+                raifRow("01.01.2019", "bad amount"),
+                raifRow("02.01.2020", "-1.00")), dateFilter);
+        assertEquals(transactions.size(), 1);
+        assertEquals(dateFilter.getSkipped(), 1);
+    }
+
+    @Test
+    public void testDescendingStatementIsReadUpToCutDate() {
+        StatementDateFilter dateFilter = new StatementDateFilter(LocalDate.of(2020, 1, 1), StatementDateOrder.DESCENDING);
+        List<MoneyTransaction> transactions = parse(new RaiffeisenStatementParser(), raifStatement(
+                raifRow("03.01.2020", "-3.00"),
+                raifRow("02.01.2020", "-2.00"),
+                raifRow("01.01.2020", "-1.00"),
+                raifRow("bad date", "bad amount")), dateFilter);
+        assertEquals(transactions.stream().map(MoneyTransaction::getDate).collect(Collectors.toList()),
+                Stream.of(3, 2).map(day -> LocalDate.of(2020, 1, day)).collect(Collectors.toList()));
+        assertEquals(dateFilter.getSkipped(), 1);
+        assertEquals(dateFilter.getObservedOrder(), StatementDateOrder.DESCENDING);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testUnorderedStatementIsReadToTheEnd() {
+        parse(new RaiffeisenStatementParser(), raifStatement(
+                raifRow("03.01.2020", "-3.00"),
+                raifRow("01.01.2020", "-1.00"),
+                raifRow("bad date", "bad amount")), new StatementDateFilter(LocalDate.of(2020, 1, 1), StatementDateOrder.UNKNOWN));
+    }
+
+    @Test
+    public void testDatesOfAscendingStatementAreNotCheckedAfterCutDate() {
+        StatementDateFilter dateFilter = new StatementDateFilter(LocalDate.of(2020, 1, 1), StatementDateOrder.ASCENDING);
+        List<MoneyTransaction> transactions = parse(new RaiffeisenStatementParser(), raifStatement(
+                raifRow("01.01.2020", "-1.00"),
+                raifRow("02.01.2020", "-2.00"),
+                raifRow("01.12.2019", "-3.00")), dateFilter);
+        assertEquals(transactions.size(), 2);
+        assertEquals(dateFilter.getSkipped(), 1);
+    }
+
+    @Test
+    public void testApplyToParsedTransactions() {
+        List<MoneyTransaction> all = new RaiffeisenStatementParser().parseBankStatement(raifStatement(
+                raifRow("03.01.2020", "-3.00"),
+                raifRow("01.01.2020", "-1.00"),
+                raifRow("02.01.2020", "-2.00")), "wallet");
+        StatementDateFilter dateFilter = new StatementDateFilter(LocalDate.of(2020, 1, 1), StatementDateOrder.DESCENDING);
+        assertEquals(dateFilter.apply(all.stream()).collect(Collectors.toList()), all.subList(0, 1));
+        assertEquals(dateFilter.getSkipped(), 1);
+    }
+}
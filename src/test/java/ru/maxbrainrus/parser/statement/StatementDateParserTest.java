@@ -0,0 +1,51 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.testng.annotations.Test;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class StatementDateParserTest {
+
+    @Test
+    public void testSameAsFormatter() {
+        StatementDateParser dateParser = new StatementDateParser();
+        for (LocalDate date = LocalDate.of(1999, 1, 1); date.isBefore(LocalDate.of(2031, 1, 1)); date = date.plusDays(1)) {
+            String dateTime = date.atTime(23, 59).format(StatementDateParser.DATE_TIME_FORMATTER);
+            assertEquals(dateParser.parseDateTime(dateTime), date);
+            if (date.getYear() >= 2000) {
+                String shortDate = date.format(StatementDateParser.SHORT_DATE_FORMATTER);
+                assertEquals(dateParser.parseShortDate(shortDate), date);
+                assertEquals(dateParser.parseShortDate("text " + shortDate + " text", 5), date);
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedDateIsCached() {
+        StatementDateParser dateParser = new StatementDateParser();
+        assertSame(dateParser.parseShortDate("01.02.03"), dateParser.parseDateTime("01.02.2003 10:00"));
+    }
+
+    @Test
+    public void testOutOfLayoutValuesFallBackToFormatter() {
+        StatementDateParser dateParser = new StatementDateParser();
+        assertEquals(dateParser.parseShortDate("31.02.03"), StatementDateParser.SHORT_DATE_FORMATTER.parse("31.02.03", LocalDate::from));
+        assertEquals(dateParser.parseDateTime("30.02.2004 00:00"), LocalDateTime.parse("30.02.2004 00:00", StatementDateParser.DATE_TIME_FORMATTER).toLocalDate());
+        assertEquals(dateParser.parseDateTime("01.02.2003 24:00"), LocalDateTime.parse("01.02.2003 24:00", StatementDateParser.DATE_TIME_FORMATTER).toLocalDate());
+    }
+
+    @Test(expectedExceptions = DateTimeException.class)
+    public void testWrongMonth() {
+        new StatementDateParser().parseShortDate("01.13.03");
+    }
+
+    @Test(expectedExceptions = DateTimeException.class)
+    public void testWrongTime() {
+        new StatementDateParser().parseDateTime("01.02.2003 25:00");
+    }
+}
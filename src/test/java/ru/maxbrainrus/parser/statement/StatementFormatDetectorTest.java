@@ -0,0 +1,74 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.assertEquals;
+
+public class StatementFormatDetectorTest {
+    private static final Charset WINDOWS_1251 = Charset.forName("windows-1251");
+
+    @DataProvider
+    public static Object[][] examples() {
+        return new Object[][]{
+                {"/raiff_example.csv", BankFormatType.RAIF},
+                {"/alfa_example.csv", BankFormatType.ALFA},
+        };
+    }
+
+    @Test(dataProvider = "examples")
+    public void testDetectFile(String resource, BankFormatType expected) throws Exception {
+        String fileName = Paths.get(getClass().getResource(resource).toURI()).toString();
+        assertEquals(BankStatementParserFactory.detectBankFormatType(fileName), expected);
+    }
+
+    @Test(dataProvider = "examples")
+    public void testDetectGzipFile(String resource, BankFormatType expected) throws Exception {
+        Path gzip = Files.createTempFile("statement", ".csv.gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+                Files.copy(Paths.get(getClass().getResource(resource).toURI()), out);
+            }
+            assertEquals(BankStatementParserFactory.detectBankFormatType(gzip.toString()), expected);
+        } finally {
+            Files.delete(gzip);
+        }
+    }
+
+    @Test(dataProvider = "examples")
+    public void testStreamIsResetAfterDetection(String resource, BankFormatType expected) throws IOException {
+        try (InputStream in = new BufferedInputStream(getClass().getResourceAsStream(resource))) {
+            assertEquals(BankStatementParserFactory.detectBankFormatType(in), expected);
+            byte[] rest = new byte[in.available() + 1];
+            int length = in.read(rest);
+            try (InputStream original = getClass().getResourceAsStream(resource)) {
+                byte[] expectedStart = new byte[length];
+                assertEquals(original.read(expectedStart), length);
+                assertEquals(new String(rest, 0, length, WINDOWS_1251), new String(expectedStart, WINDOWS_1251));
+            }
+        }
+    }
+
+    @Test
+    public void testQuotedHeaderWithoutRows() throws IOException {
+        byte[] header = "\"Дата операции\";\"Описание\";\"Сумма в валюте счета\"".getBytes(WINDOWS_1251);
+        assertEquals(BankStatementParserFactory.detectBankFormatType(new ByteArrayInputStream(header)), BankFormatType.RAIF);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownHeader() throws IOException {
+        byte[] statement = "Date;Description;Amount\r\n01.01.2020;Shop;-1.00\r\n".getBytes(WINDOWS_1251);
+        BankStatementParserFactory.detectBankFormatType(new ByteArrayInputStream(statement));
+    }
+}
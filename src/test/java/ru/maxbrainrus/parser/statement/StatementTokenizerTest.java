@@ -0,0 +1,164 @@
+package ru.maxbrainrus.parser.statement;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.generator.StatementGenerator;
+import ru.maxbrainrus.parser.StringPool;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class StatementTokenizerTest {
+    private static final String ALPHABET = "ab;;\"\"\r\n  йЁ";
+
+    private static List<List<String>> parseWithCommonsCsv(String csv) throws IOException {
+        List<List<String>> result = new ArrayList<>();
+        try (CSVParser parser = CSVFormat.DEFAULT.withDelimiter(';').parse(new StringReader(csv))) {
+            for (CSVRecord record : parser) {
+                List<String> values = new ArrayList<>();
+                record.forEach(values::add);
+                result.add(values);
+            }
+        }
+        return result;
+    }
+
+    private static List<List<String>> parseWithCommonsCsvOrNull(String csv) {
+        try {
+            return parseWithCommonsCsv(csv);
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static List<List<String>> parseWithTokenizer(byte[] csv, int bufferSize) throws IOException {
+        List<List<String>> result = new ArrayList<>();
+        ByteSource source = new ChannelByteSource(Channels.newChannel(new ByteArrayInputStream(csv)), bufferSize);
+        try (StatementTokenizer tokenizer = new StatementTokenizer(source, ';', '"')) {
+            while (tokenizer.next()) {
+                List<String> values = new ArrayList<>();
+                for (int i = 0; i < tokenizer.size(); i++) {
+                    values.add(tokenizer.get(i));
+                    assertEquals(tokenizer.getChars(i).toString(), values.get(i));
+                }
+                result.add(values);
+            }
+        }
+        return result;
+    }
+
+    private static String randomCsv(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(40);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSameRecordsAsCommonsCsv() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            String csv = randomCsv(random);
+            byte[] bytes = csv.getBytes(StatementTokenizer.CHARSET);
+            List<List<String>> expected = parseWithCommonsCsvOrNull(csv);
+            if (expected == null) {
+                try {
+                    parseWithTokenizer(bytes, 4);
+                    fail("Exception is expected for " + csv);
+                } catch (IOException expectedException) {
+                    // expected
+                }
+            } else {
+                assertEquals(parseWithTokenizer(bytes, 1 + random.nextInt(8)), expected, csv);
+            }
+        }
+    }
+
+    @Test
+    public void testColumnOutOfRecord() throws IOException {
+        ByteSource source = ByteSource.wrap(ByteBuffer.wrap("a;b\nc".getBytes(StatementTokenizer.CHARSET)));
+        try (StatementTokenizer tokenizer = new StatementTokenizer(source, ';', '"')) {
+            assertTrue(tokenizer.next());
+            assertTrue(tokenizer.next());
+            assertEquals(tokenizer.size(), 1);
+            try {
+                tokenizer.get(1);
+                fail();
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testReadModesGiveSameTransactions() throws IOException {
+        Path statement = Files.createTempFile("statement", ".csv");
+        try {
+            for (BankFormatType bankFormatType : BankFormatType.values()) {
+                try (OutputStream out = Files.newOutputStream(statement)) {
+                    new StatementGenerator(5).writeStatement(bankFormatType, 5000, out);
+                }
+                List<List<MoneyTransaction>> results = new ArrayList<>();
+                for (StatementReadMode readMode : StatementReadMode.values()) {
+                    BankStatementParser parser = BankStatementParserFactory.createBankStatementParser(bankFormatType, new StringPool(), readMode);
+                    results.add(parser.parseBankStatement(statement.toString(), "wallet"));
+                }
+                assertEquals(results.get(0).size(), 5000);
+                for (List<MoneyTransaction> result : results) {
+                    assertEquals(result, results.get(0), bankFormatType + " " + Arrays.toString(StatementReadMode.values()));
+                }
+            }
+        } finally {
+            Files.delete(statement);
+        }
+    }
+
+    @Test
+    public void testMappedWindowsGiveSameRecords() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StatementGenerator(6).writeStatement(BankFormatType.ALFA, 300, out);
+        byte[] content = out.toByteArray();
+        Path statement = Files.createTempFile("statement", ".csv");
+        try {
+            Files.write(statement, content);
+            List<List<String>> expected = parseWithTokenizer(content, ChannelByteSource.DEFAULT_BUFFER_SIZE);
+            for (int windowSize : new int[]{1, 7, 100, 1000, content.length, content.length * 2}) {
+                List<List<String>> result = new ArrayList<>();
+                try (StatementTokenizer tokenizer = new StatementTokenizer(
+                        new MappedByteSource(FileChannel.open(statement), windowSize), ';', '"')) {
+                    while (tokenizer.next()) {
+                        List<String> values = new ArrayList<>();
+                        for (int i = 0; i < tokenizer.size(); i++) {
+                            values.add(tokenizer.get(i));
+                        }
+                        result.add(values);
+                    }
+                }
+                assertEquals(result, expected, "window size: " + windowSize);
+            }
+        } finally {
+            Files.delete(statement);
+        }
+    }
+}
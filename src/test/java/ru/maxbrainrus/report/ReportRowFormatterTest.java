@@ -0,0 +1,146 @@
+package ru.maxbrainrus.report;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.transaction.AmountWithCcy;
+import ru.maxbrainrus.transaction.Amounts;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.OperationType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+
+public class ReportRowFormatterTest {
+    private static final String[] TEXTS = {
+            null, "", " ", "a", "#tag", "!", "\"quoted\"", "a\"b", "a,b", "a\nb", "a\rb", "trailing ", "trailing\t",
+            " leading", "$", "Продукты", "€ sign", "emoji 😀", "Наличность (куда)"
+    };
+    private static final long[] AMOUNTS = {1, 5, 10, 99, 100, 123456, -1, -100, -123456, Long.MAX_VALUE, Long.MIN_VALUE};
+    private static final LocalDate[] DATES = {
+            LocalDate.of(2020, 1, 2), LocalDate.of(999, 12, 31), LocalDate.of(10000, 1, 1), LocalDate.of(-5, 6, 7)
+    };
+
+    private static AmountWithCcy amount(long minorUnits) {
+        return AmountWithCcy.builder().minorUnits(minorUnits).build();
+    }
+
+    private static AmountWithCcy amount(long minorUnits, int scale) {
+        return AmountWithCcy.builder().minorUnits(minorUnits).scale(scale).build();
+    }
+
+    private static List<MoneyTransaction> transactions() {
+        List<MoneyTransaction> result = new ArrayList<>();
+        int i = 0;
+        for (String text : TEXTS) {
+            for (long amount : AMOUNTS) {
+                boolean target = i % 3 == 0;
+                result.add(MoneyTransaction.builder()
+                        .date(DATES[i % DATES.length])
+                        .operationType(OperationType.values()[i % OperationType.values().length])
+                        .amounts(Amounts.builder()
+                                .sourceAmount(target ? null : amount(amount, i % 5))
+                                .targetAmount(target ? amount(amount, i % 5) : null)
+                                .build())
+                        .category(TEXTS[i % TEXTS.length])
+                        .description(text)
+                        .sourceWallet(TEXTS[(i + 7) % TEXTS.length])
+                        .targetWallet(TEXTS[(i + 3) % TEXTS.length])
+                        .build());
+                i++;
+            }
+        }
+        return result;
+    }
+
+    private static String printWithCsvPrinter(List<MoneyTransaction> transactions) throws IOException {
+        StringWriter out = new StringWriter();
+        CSVPrinter printer = new CSVPrinter(out, CSVFormat.DEFAULT.withHeader(ReportRowFormatter.REPORT_HEADERS));
+        for (MoneyTransaction transaction : transactions) {
+            Amounts amounts = transaction.getAmounts();
+            AmountWithCcy amount = amounts.getSourceAmount() != null ? amounts.getSourceAmount() : amounts.getTargetAmount();
+            BigDecimal value = amount == null ? null : amount.getAmount();
+            printer.printRecord(transaction.getDate(), transaction.getOperationType().getExportName(), value,
+                    transaction.getCategory(), transaction.getDescription(), transaction.getSourceWallet(), transaction.getTargetWallet());
+        }
+        printer.flush();
+        return out.toString();
+    }
+
+    @Test
+    public void testSameAsCsvPrinter() throws IOException {
+        List<MoneyTransaction> transactions = transactions();
+        StringWriter out = new StringWriter();
+        CsvReportMaker.createReport(transactions.stream(), out);
+        assertEquals(out.toString(), printWithCsvPrinter(transactions));
+    }
+
+    @Test
+    public void testEmptyAndNullValuesAreNotQuoted() {
+        MoneyTransaction transaction = MoneyTransaction.builder()
+                .date(LocalDate.of(2020, 1, 2))
+                .operationType(OperationType.INCOME)
+                .amounts(Amounts.builder().sourceAmount(amount(150)).build())
+                .description("")
+                .build();
+        StringWriter out = new StringWriter();
+        CsvReportMaker.createReport(Stream.of(transaction), out);
+        assertEquals(out.toString().split("\r\n")[1], "2020-01-02,Доход,1.50,,,,");
+    }
+
+    @Test
+    public void testChunksFormattedInParallelAreWrittenInOrder() throws IOException {
+        List<MoneyTransaction> transactions = transactions();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (ChunkedReportWriter writer = new ChunkedReportWriter(Channels.newChannel(out), pool)) {
+            writer.writeChunk(ReportRowFormatter::appendHeader);
+            for (int from = 0; from < transactions.size(); from += 7) {
+                List<MoneyTransaction> chunk = transactions.subList(from, Math.min(from + 7, transactions.size()));
+                writer.writeChunk(formatter -> chunk.forEach(formatter::appendRow));
+            }
+            writer.finish();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(new String(out.toByteArray(), StandardCharsets.UTF_8), printWithCsvPrinter(transactions));
+    }
+
+    @Test
+    public void testAmountIsWrittenWithItsScale() {
+        StringWriter out = new StringWriter();
+        CsvReportMaker.createReport(Stream.of("1", "1234.5", "40000.00").map(value -> MoneyTransaction.builder()
+                .date(LocalDate.of(2020, 1, 2))
+                .operationType(OperationType.EXPENDITURE)
+                .amounts(Amounts.builder().sourceAmount(AmountWithCcy.builder().amount(new BigDecimal(value)).build()).build())
+                .build()), out);
+        String[] lines = out.toString().split("\r\n");
+        assertEquals(lines[1], "2020-01-02,Расход,1,,,,");
+        assertEquals(lines[2], "2020-01-02,Расход,1234.5,,,,");
+        assertEquals(lines[3], "2020-01-02,Расход,40000.00,,,,");
+    }
+
+    @Test(expectedExceptions = CharacterCodingException.class)
+    public void testMalformedTextIsNotEncoded() throws IOException {
+        ReportRowFormatter formatter = new ReportRowFormatter();
+        formatter.appendRow(MoneyTransaction.builder()
+                .date(LocalDate.of(2020, 1, 2))
+                .operationType(OperationType.INCOME)
+                .amounts(Amounts.builder().sourceAmount(amount(150)).build())
+                .description("lone surrogate \uD83D")
+                .build());
+        formatter.encode();
+    }
+}
@@ -0,0 +1,178 @@
+package ru.maxbrainrus.report;
+
+import org.testng.annotations.Test;
+import ru.maxbrainrus.transaction.AmountWithCcy;
+import ru.maxbrainrus.transaction.Amounts;
+import ru.maxbrainrus.transaction.MoneyTransaction;
+import ru.maxbrainrus.transaction.OperationType;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+
+public class SummaryAggregatorTest {
+    private static final String[] CATEGORIES = {null, "Shop", "Cafe", "Taxi", "Продукты"};
+    private static final String[] WALLETS = {"Card", "Cash", "Наличность"};
+    private static final String[] CURRENCIES = {null, "RUB", "USD"};
+
+    /**
+     * Transaction as parsers make it: positive source amount of any operation type in the wallet of statement
+     */
+    private static MoneyTransaction transaction(LocalDate date, OperationType operationType, String category,
+                                                String wallet, long minorUnits, String currency) {
+        return MoneyTransaction.builder()
+                .date(date)
+                .operationType(operationType)
+                .category(category)
+                .sourceWallet(wallet)
+                .amounts(Amounts.builder()
+                        .sourceAmount(AmountWithCcy.builder().minorUnits(minorUnits).ccy(currency).build())
+                        .build())
+                .build();
+    }
+
+    private static MoneyTransaction transaction(LocalDate date, OperationType operationType, String category,
+                                                String wallet, long minorUnits) {
+        return transaction(date, operationType, category, wallet, minorUnits, null);
+    }
+
+    private static String describe(SummaryRow row) {
+        return row.getMonth() + " " + row.getOperationType() + " " + row.getCategory() + " " + row.getWallet()
+                + " " + row.getCurrency() + " " + row.getTotalMinorUnits() + " " + row.getCount();
+    }
+
+    private static List<String> describe(List<SummaryRow> rows) {
+        return rows.stream().map(SummaryAggregatorTest::describe).collect(Collectors.toList());
+    }
+
+    private static SummaryAggregator aggregateExample() {
+        SummaryAggregator aggregator = new SummaryAggregator();
+        aggregator.aggregate(Arrays.asList(
+                transaction(LocalDate.of(2020, 1, 31), OperationType.EXPENDITURE, "Shop", "Card", 150),
+                transaction(LocalDate.of(2020, 2, 1), OperationType.EXPENDITURE, "Shop", "Card", 100),
+                transaction(LocalDate.of(2020, 1, 1), OperationType.EXPENDITURE, "Shop", "Card", 50),
+                transaction(LocalDate.of(2020, 1, 5), OperationType.INCOME, null, "Card", 1000),
+                transaction(LocalDate.of(2020, 1, 6), OperationType.TRANSFER, null, "Card", 300),
+                transaction(LocalDate.of(2019, 12, 6), OperationType.EXPENDITURE, "Shop", "Cash", 7)
+        ).stream()).collect(Collectors.toList());
+        return aggregator;
+    }
+
+    @Test
+    public void testRowsAreSummed() {
+        SummaryAggregator aggregator = aggregateExample();
+
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.DETAILED)), Arrays.asList(
+                "2019-12 EXPENDITURE Shop Cash null 7 1",
+                "2020-01 EXPENDITURE Shop Card null 200 2",
+                "2020-01 INCOME null Card null 1000 1",
+                "2020-01 TRANSFER null Card null 300 1",
+                "2020-02 EXPENDITURE Shop Card null 100 1"
+        ));
+    }
+
+    @Test
+    public void testRollupsAreSplitByOperationType() {
+        SummaryAggregator aggregator = aggregateExample();
+
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.MONTH)), Arrays.asList(
+                "2019-12 EXPENDITURE null null null 7 1",
+                "2020-01 EXPENDITURE null null null 200 2",
+                "2020-01 INCOME null null null 1000 1",
+                "2020-01 TRANSFER null null null 300 1",
+                "2020-02 EXPENDITURE null null null 100 1"
+        ));
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.CATEGORY)), Arrays.asList(
+                "null EXPENDITURE Shop null null 307 4",
+                "null INCOME null null null 1000 1",
+                "null TRANSFER null null null 300 1"
+        ));
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.WALLET)), Arrays.asList(
+                "null EXPENDITURE null Card null 300 3",
+                "null EXPENDITURE null Cash null 7 1",
+                "null INCOME null Card null 1000 1",
+                "null TRANSFER null Card null 300 1"
+        ));
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.OPERATION_TYPE)), Arrays.asList(
+                "null EXPENDITURE null null null 307 4",
+                "null INCOME null null null 1000 1",
+                "null TRANSFER null null null 300 1"
+        ));
+        List<SummaryRow> rows = aggregator.getRows();
+        assertEquals(rows.size(), 5 + 5 + 3 + 4 + 3);
+        assertEquals(rows.stream().map(SummaryRow::getGrouping).distinct().collect(Collectors.toList()),
+                Arrays.asList(SummaryGrouping.values()));
+    }
+
+    @Test
+    public void testCurrenciesAreNotAdded() {
+        SummaryAggregator aggregator = new SummaryAggregator();
+        aggregator.add(transaction(LocalDate.of(2020, 1, 10), OperationType.EXPENDITURE, "Shop", "Card", 500, "USD"));
+        aggregator.add(transaction(LocalDate.of(2020, 1, 11), OperationType.EXPENDITURE, "Shop", "Card", 200, "RUB"));
+        aggregator.add(transaction(LocalDate.of(2020, 1, 12), OperationType.EXPENDITURE, "Shop", "Card", 300, "USD"));
+
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.DETAILED)), Arrays.asList(
+                "2020-01 EXPENDITURE Shop Card RUB 200 1",
+                "2020-01 EXPENDITURE Shop Card USD 800 2"
+        ));
+        assertEquals(describe(aggregator.getRows(SummaryGrouping.OPERATION_TYPE)), Arrays.asList(
+                "null EXPENDITURE null null RUB 200 1",
+                "null EXPENDITURE null null USD 800 2"
+        ));
+    }
+
+    private static List<String> groupTransactions(List<MoneyTransaction> transactions, Function<MoneyTransaction, String> dimensions) {
+        Map<String, long[]> expected = new TreeMap<>();
+        for (MoneyTransaction transaction : transactions) {
+            AmountWithCcy amount = transaction.getAmounts().getSourceAmount();
+            long[] totals = expected.computeIfAbsent(dimensions.apply(transaction) + " " + amount.getCcy(), key -> new long[2]);
+            totals[0] += amount.getMinorUnits();
+            totals[1]++;
+        }
+        return expected.entrySet().stream()
+                .map(entry -> entry.getKey() + " " + entry.getValue()[0] + " " + entry.getValue()[1])
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(List<String> rows) {
+        return rows.stream().sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSameAsGroupingOfTransactions() {
+        Random random = new Random(42);
+        List<MoneyTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            transactions.add(transaction(LocalDate.of(1990 + random.nextInt(40), 1 + random.nextInt(12), 1),
+                    OperationType.values()[random.nextInt(OperationType.values().length)],
+                    CATEGORIES[random.nextInt(CATEGORIES.length)] + (random.nextBoolean() ? "" : random.nextInt(10)),
+                    WALLETS[random.nextInt(WALLETS.length)], 1 + random.nextInt(1_000_000),
+                    CURRENCIES[random.nextInt(CURRENCIES.length)]));
+        }
+        SummaryAggregator aggregator = new SummaryAggregator();
+        transactions.forEach(aggregator::add);
+
+        List<String> expectedRows = groupTransactions(transactions, transaction -> YearMonth.from(transaction.getDate())
+                + " " + transaction.getOperationType() + " " + transaction.getCategory() + " " + transaction.getSourceWallet());
+        assertEquals(aggregator.size(), expectedRows.size());
+        assertEquals(sorted(describe(aggregator.getRows(SummaryGrouping.DETAILED))), expectedRows);
+        assertEquals(sorted(describe(aggregator.getRows(SummaryGrouping.MONTH))), groupTransactions(transactions,
+                transaction -> YearMonth.from(transaction.getDate()) + " " + transaction.getOperationType() + " null null"));
+        assertEquals(sorted(describe(aggregator.getRows(SummaryGrouping.CATEGORY))), groupTransactions(transactions,
+                transaction -> "null " + transaction.getOperationType() + " " + transaction.getCategory() + " null"));
+        assertEquals(sorted(describe(aggregator.getRows(SummaryGrouping.WALLET))), groupTransactions(transactions,
+                transaction -> "null " + transaction.getOperationType() + " null " + transaction.getSourceWallet()));
+        assertEquals(sorted(describe(aggregator.getRows(SummaryGrouping.OPERATION_TYPE))), groupTransactions(transactions,
+                transaction -> "null " + transaction.getOperationType() + " null null"));
+    }
+}
@@ -0,0 +1,151 @@
+package ru.maxbrainrus.server;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.config.KeyWordMatcher;
+import ru.maxbrainrus.parser.ReportOptions;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ReportServerTest {
+    private ReportServer server;
+
+    private static byte[] readResource(String resourcePath) throws IOException {
+        return Files.readAllBytes(Paths.get(new File(ReportServerTest.class.getResource(resourcePath).getPath()).getPath()));
+    }
+
+    private static List<String> readLines(InputStream in) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        Map<String, ConfigValue> config = new LinkedHashMap<>();
+        config.put("some transaction", ConfigValue.builder().category("Shop").build());
+        config.put("rollback", ConfigValue.builder().category("Refund").additionalDescription("Shop refund").build());
+        config.put("transfer", ConfigValue.builder().category("Other wallet").build());
+        ReportOptions defaultOptions = ReportOptions.builder()
+                .sourceWallet("defaultWallet")
+                .bankFormatType(BankFormatType.ALFA)
+                .build();
+        server = new ReportServer(KeyWordMatcher.compile(config), defaultOptions, new InetSocketAddress("localhost", 0));
+        server.start();
+    }
+
+    @AfterClass
+    public void stopServer() {
+        server.close();
+    }
+
+    private HttpURLConnection post(String query, byte[] statement) throws IOException {
+        URL url = new URL("http", "localhost", server.getAddress().getPort(), ReportServer.REPORT_PATH + query);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(statement);
+        }
+        return connection;
+    }
+
+    @Test
+    public void testReport() throws IOException {
+        HttpURLConnection connection = post("?format=RAIF&wallet=testWallet&cutDate=01-02-2000", readResource("/raiff_example.csv"));
+
+        assertEquals(connection.getResponseCode(), 200);
+        assertEquals(readLines(connection.getInputStream()), Arrays.asList(
+                "Дата,Тип транзакции,Сумма,Категория,Описание,Наличность,Наличность (куда)",
+                "2003-02-01,Расход,1234.56,Shop,SOME TRANSACTION DESCRIPTION,testWallet,",
+                "2004-03-02,Расход,234.00,Shop,\"\"\"some transaction with quotes\"\" and other text\",testWallet,",
+                "2005-04-03,Доход,40000.00,Other wallet,transfer money from one account to another,testWallet,",
+                "2020-06-05,Доход,2499.00,Refund,Shop refund (rollback money),testWallet,"
+        ));
+    }
+
+    @Test
+    public void testReportWithDefaultOptions() throws IOException {
+        HttpURLConnection connection = post("", readResource("/alfa_example.csv"));
+
+        assertEquals(connection.getResponseCode(), 200);
+        List<String> report = readLines(connection.getInputStream());
+        assertTrue(report.size() > 1);
+        assertTrue(report.get(1).contains("defaultWallet"));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        assertEquals(post("?format=UNKNOWN", new byte[0]).getResponseCode(), 400);
+        assertEquals(post("?cutDate=2000-01-01", new byte[0]).getResponseCode(), 400);
+        assertEquals(post("?format=ALFA", readResource("/raiff_example.csv")).getResponseCode(), 422);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", server.getAddress().getPort(), ReportServer.REPORT_PATH).openConnection();
+        assertEquals(connection.getResponseCode(), 405);
+    }
+
+    @Test
+    public void testRequestsShareLookupCache() throws IOException {
+        byte[] statement = readResource("/raiff_example.csv");
+        assertEquals(post("?format=RAIF&wallet=cacheWallet", statement).getResponseCode(), 200);
+        long misses = server.getConfigFiller().getLookupCache().getMisses();
+
+        assertEquals(post("?format=RAIF&wallet=cacheWallet", statement).getResponseCode(), 200);
+
+        assertEquals(server.getConfigFiller().getLookupCache().getMisses(), misses);
+    }
+
+    @Test
+    public void testBrokenRequestBody() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getAddress().getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST " + ReportServer.REPORT_PATH + " HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Transfer-Encoding: chunked\r\n"
+                    + "\r\n"
+                    + "100\r\n"
+                    + "Operation date;").getBytes(StandardCharsets.US_ASCII));
+            // Request body ends before its first chunk
+            socket.shutdownOutput();
+
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertTrue(statusLine.startsWith("HTTP/1.1 422"), statusLine);
+        }
+    }
+
+    @Test(dependsOnMethods = {"testReport", "testReportWithDefaultOptions", "testErrors", "testRequestsShareLookupCache", "testBrokenRequestBody"})
+    public void testMetrics() throws IOException, InterruptedException {
+        // Request is recorded after its response is completed
+        for (int attempt = 0; attempt < 100 && server.getMetrics().getRequests() < 9; attempt++) {
+            Thread.sleep(10);
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", "localhost", server.getAddress().getPort(), ReportServer.METRICS_PATH).openConnection();
+
+        assertEquals(connection.getResponseCode(), 200);
+        assertTrue(readLines(connection.getInputStream()).contains("requests 9"));
+        assertEquals(server.getMetrics().getFailures(), 5);
+    }
+}
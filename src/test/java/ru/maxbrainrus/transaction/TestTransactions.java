@@ -0,0 +1,26 @@
+package ru.maxbrainrus.transaction;
+
+import java.time.LocalDate;
+
+/**
+ * Transactions for tests of filters
+ */
+public class TestTransactions {
+    private TestTransactions() {
+    }
+
+    /**
+     * @return expenditure of 100.00 from the wallet
+     */
+    public static MoneyTransaction expenditure(LocalDate date, String description, String wallet) {
+        return MoneyTransaction.builder()
+                .operationType(OperationType.EXPENDITURE)
+                .date(date)
+                .description(description)
+                .amounts(Amounts.builder()
+                        .sourceAmount(AmountWithCcy.builder().minorUnits(10000).build())
+                        .build())
+                .sourceWallet(wallet)
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package ru.maxbrainrus.transaction;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import ru.maxbrainrus.config.ConfigValue;
+import ru.maxbrainrus.generator.StatementGenerator;
+import ru.maxbrainrus.parser.ConfigFiller;
+import ru.maxbrainrus.parser.statement.AlfaStatementParser;
+import ru.maxbrainrus.parser.statement.BankFormatType;
+import ru.maxbrainrus.parser.statement.CsvStatementParser;
+import ru.maxbrainrus.parser.statement.RaiffeisenStatementParser;
+import ru.maxbrainrus.report.CsvReportMaker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TransactionBatchTest {
+
+    @DataProvider
+    public static Object[][] parsers() {
+        return new Object[][]{
+                {BankFormatType.RAIF, new RaiffeisenStatementParser()},
+                {BankFormatType.ALFA, new AlfaStatementParser()},
+        };
+    }
+
+    private static List<MoneyTransaction> generateTransactions(BankFormatType bankFormatType, CsvStatementParser parser) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new StatementGenerator(3).writeStatement(bankFormatType, 3000, out);
+        return parser.parseBankStatement(new ByteArrayInputStream(out.toByteArray()), "wallet");
+    }
+
+    @Test
+    public void testRowViewsAreEqualToAddedTransactions() {
+        MoneyTransaction transfer = MoneyTransaction.builder()
+                .operationType(OperationType.TRANSFER)
+                .date(LocalDate.of(2020, 1, 2))
+                .description("CARD2CARD")
+                .amounts(Amounts.builder()
+                        .sourceAmount(AmountWithCcy.builder().minorUnits(-100).ccy("RUR").build())
+                        .targetAmount(AmountWithCcy.builder().minorUnits(150).ccy("USD").build())
+                        .build())
+                .sourceWallet("wallet")
+                .operationDate(LocalDateTime.of(2020, 1, 1, 12, 30))
+                .build();
+        MoneyTransaction expense = MoneyTransaction.builder()
+                .operationType(OperationType.EXPENDITURE)
+                .date(LocalDate.of(1999, 12, 31))
+                .description("Shop")
+                .amounts(Amounts.builder()
+                        .sourceAmount(AmountWithCcy.builder().minorUnits(0).ccy("RUR").build())
+                        .build())
+                .category("Food")
+                .sourceWallet("wallet")
+                .build();
+        TransactionBatch batch = new TransactionBatch(1);
+        for (int i = 0; i < 100; i++) {
+            batch.add(transfer);
+            batch.add(expense);
+        }
+
+        assertEquals(batch.size(), 200);
+        assertEquals(batch.get(0), transfer);
+        assertEquals(batch.get(199), expense);
+        assertNull(batch.getOperationDate(199));
+        assertEquals(batch.getDictionary().size(), 6);
+    }
+
+    @Test(dataProvider = "parsers")
+    public void testFillAndReportAreSameAsForTransactionList(BankFormatType bankFormatType, CsvStatementParser parser) throws IOException {
+        List<MoneyTransaction> transactions = generateTransactions(bankFormatType, parser);
+        Map<String, ConfigValue> config = new StatementGenerator(3).generateKeyWordsToCategoryMap(300);
+        List<MoneyTransaction> expected = new ConfigFiller(config).fill(transactions);
+
+        TransactionBatch batch = TransactionBatch.of(transactions.stream());
+        new ConfigFiller(config).fill(batch);
+        assertEquals(batch.asList(), expected);
+
+        Path expectedReport = Files.createTempFile("report", ".csv");
+        Path batchReport = Files.createTempFile("report", ".csv");
+        try {
+            CsvReportMaker.createReport(expected, expectedReport.toString());
+            CsvReportMaker.createReport(batch, batchReport.toString());
+            assertEquals(Files.readAllBytes(batchReport), Files.readAllBytes(expectedReport));
+        } finally {
+            Files.delete(expectedReport);
+            Files.delete(batchReport);
+        }
+    }
+}